@@ -0,0 +1,117 @@
+package pl.meters.gurux.benchmarks;
+
+import gurux.dlms.GXDateTime;
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSClock;
+import gurux.dlms.objects.GXDLMSObject;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+import gurux.dlms.objects.GXDLMSRegister;
+import org.openjdk.jmh.annotations.*;
+import pl.meters.gurux.converters.ColumnarConverter;
+import pl.meters.gurux.converters.ColumnarReadings;
+import pl.meters.gurux.converters.MeterReadingConverter;
+import pl.meters.gurux.converters.ProjectionPlan;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts synthetic 15-minute profile buffer (clock, two energy registers, voltage, power factor)
+ * to rows of boxed values, to rows the way converters did it before (column search and String round trip
+ * for every cell) and to primitive column buffers.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar org.openjdk.jmh.Main ConverterBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConverterBenchmark {
+
+    private static final String CLOCK_LN = "0.0.1.0.0.255";
+    private static final List<String> FIELDS = Arrays.asList("1.0.1.8.0.255", "1.0.2.8.0.255", "1.0.32.7.0.255", "1.0.13.7.0.255");
+
+    @Param("100000")
+    public int rows;
+
+    private Object[] cells;
+    private List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects;
+    private MeterParams meterParams;
+    private MeterReadingConverter converter;
+    private ColumnarConverter columnarConverter;
+    private ColumnarReadings readings;
+
+    @Setup
+    public void setUp() {
+        GXDLMSProfileGeneric pg = new GXDLMSProfileGeneric("1.0.99.1.0.255");
+        pg.addCaptureObject(new GXDLMSClock(CLOCK_LN), 2, 0);
+        for (String ln : FIELDS) {
+            pg.addCaptureObject(new GXDLMSRegister(ln), 2, 0);
+        }
+        captureObjects = pg.getCaptureObjects();
+        meterParams = MeterParams.builder()
+                .meterProducer("BENCHMARK")
+                .clockObis(CLOCK_LN)
+                .fieldsOfProfileLn(FIELDS)
+                .build();
+        Instant time = Instant.parse("2024-01-01T00:00:00Z");
+        cells = new Object[rows];
+        for (int i = 0; i < rows; i++) {
+            cells[i] = new Object[]{new GXDateTime(Date.from(time.plusSeconds(900L * i))),
+                    100_000L + i, 5_000L + i / 3, 230 + i % 5, 0.95f};
+        }
+        converter = new MeterReadingConverter();
+        ProjectionPlan plan = converter.compile(captureObjects, meterParams);
+        columnarConverter = converter.columnarConverter(plan);
+        readings = new ColumnarReadings(FIELDS, rows);
+    }
+
+    @Benchmark
+    public List<Object[]> stringRoundTrip() {
+        List<Object[]> res = new ArrayList<>();
+        for (Object row : cells) {
+            Object[] rowsTab = (Object[]) row;
+            Object[] resultRow = new Object[FIELDS.size() + 1];
+            resultRow[0] = rowsTab[columnOf(CLOCK_LN)];
+            int i = 1;
+            for (String obisOfField : FIELDS) {
+                resultRow[i++] = Double.valueOf(String.valueOf(rowsTab[columnOf(obisOfField)]));
+            }
+            res.add(resultRow);
+        }
+        return res;
+    }
+
+    @Benchmark
+    public List<Object[]> boxedRows() {
+        return converter.convert(cells, captureObjects, meterParams);
+    }
+
+    @Benchmark
+    public ColumnarReadings columnar() {
+        readings.clear();
+        for (Object row : cells) {
+            columnarConverter.convert((Object[]) row, readings);
+        }
+        return readings;
+    }
+
+    private int columnOf(String obis) {
+        int columnNb = 0;
+        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : captureObjects) {
+            if (obis.equals(col.getKey().getLogicalName())) {
+                return columnNb;
+            }
+            columnNb++;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,94 @@
+package pl.meters.gurux.benchmarks;
+
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXDateTime;
+import gurux.dlms.enums.DataType;
+import org.openjdk.jmh.annotations.*;
+import pl.meters.gurux.converters.DlmsDateTime;
+import pl.meters.gurux.simulator.SimulatedMeter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timestamp of one row (1 day of 15-minute rows per operation): date-time octet string and clock decoded by Gurux
+ * to ISO local date-time, through {@code Calendar} and {@code DateTimeFormatter} as converters did before
+ * and through {@link DlmsDateTime}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DateTimeBenchmark {
+
+    private byte[][] octets;
+    private GXDateTime[] clocks;
+    private DlmsDateTime dateTime;
+
+    @Setup
+    public void setUp() {
+        List<Object[]> rows = SimulatedMeter.generateRows(1);
+        octets = new byte[rows.size()][];
+        clocks = new GXDateTime[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            clocks[i] = (GXDateTime) rows.get(i)[0];
+            octets[i] = octetString(clocks[i]);
+        }
+        dateTime = DlmsDateTime.systemDefault();
+    }
+
+    @Benchmark
+    public String octetsCalendar() {
+        String res = null;
+        for (byte[] value : octets) {
+            Calendar cal = ((GXDateTime) GXDLMSClient.changeType(value, DataType.DATETIME)).getLocalCalendar(TimeZone.getDefault());
+            res = LocalDateTime.of(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH),
+                    cal.get(Calendar.HOUR_OF_DAY), cal.get(Calendar.MINUTE), cal.get(Calendar.SECOND))
+                    .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        return res;
+    }
+
+    @Benchmark
+    public String octetsDlmsDateTime() {
+        String res = null;
+        for (byte[] value : octets) {
+            res = DlmsDateTime.format(dateTime.localSecond(value, Long.MIN_VALUE));
+        }
+        return res;
+    }
+
+    @Benchmark
+    public String clockCalendar() {
+        String res = null;
+        for (GXDateTime clock : clocks) {
+            res = LocalDateTime.ofInstant(clock.getLocalCalendar().toInstant(), TimeZone.getDefault().toZoneId())
+                    .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        return res;
+    }
+
+    @Benchmark
+    public String clockDlmsDateTime() {
+        String res = null;
+        for (GXDateTime clock : clocks) {
+            res = DlmsDateTime.format(dateTime.localSecond(Math.floorDiv(clock.getValue().getTime(), 1000L)));
+        }
+        return res;
+    }
+
+    private static byte[] octetString(GXDateTime time) {
+        Calendar cal = time.getLocalCalendar();
+        int year = cal.get(Calendar.YEAR);
+        return new byte[]{(byte) (year >> 8), (byte) year, (byte) (cal.get(Calendar.MONTH) + 1),
+                (byte) cal.get(Calendar.DAY_OF_MONTH), (byte) 0xFF, (byte) cal.get(Calendar.HOUR_OF_DAY),
+                (byte) cal.get(Calendar.MINUTE), (byte) cal.get(Calendar.SECOND), (byte) 0xFF,
+                (byte) 0x80, 0, 0};
+    }
+}
@@ -0,0 +1,126 @@
+package pl.meters.gurux.benchmarks;
+
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXDateTime;
+import gurux.dlms.GXReplyData;
+import gurux.dlms.GXStructure;
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSClock;
+import gurux.dlms.objects.GXDLMSObject;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+import gurux.dlms.objects.GXDLMSRegister;
+import org.openjdk.jmh.annotations.*;
+import pl.meters.gurux.converters.ItronReadingConverter;
+import pl.meters.gurux.converters.MeterReadingConverter;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.simulator.SimulatedMeter;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of one profile reading for 1 day, 1 month and 1 year of 15-minute data:
+ * parsing of recorded HDLC frames ({@code GXDLMSClient.getData}), decoding of the buffer
+ * ({@code updateValue(pg, 2, ...)}) and conversion of decoded rows by both converters.
+ * Itron rows are synthetic, clock is sent as octet string with status in the first row of every day only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DecodeBenchmark {
+
+    @Param({"1", "30", "365"})
+    public int days;
+
+    private RecordedSession session;
+    private GXDLMSClient client;
+    private GXDLMSProfileGeneric pg;
+    private Object value;
+    private Object[] cells;
+    private Object[] itronCells;
+    private List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects;
+    private List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> itronCaptureObjects;
+    private MeterParams meterParams;
+    private MeterReadingConverter meterReadingConverter;
+    private ItronReadingConverter itronReadingConverter;
+
+    @Setup
+    public void setUp() throws Exception {
+        session = RecordedSession.record(days);
+        client = RecordedSession.newClient();
+        pg = RecordedSession.profile();
+        value = session.replay(RecordedSession.newClient(), pg).getValue();
+        cells = (Object[]) client.updateValue(pg, 2, value);
+        pg.getBuffer().clear();
+        itronCells = itronCells(cells);
+        captureObjects = pg.getCaptureObjects();
+        itronCaptureObjects = itronProfile().getCaptureObjects();
+        meterParams = SessionDensityBenchmark.meterParams(0, days);
+        meterReadingConverter = new MeterReadingConverter();
+        itronReadingConverter = new ItronReadingConverter();
+    }
+
+    @Benchmark
+    public GXReplyData parseFrames() throws Exception {
+        return session.replay(RecordedSession.newClient(), RecordedSession.profile());
+    }
+
+    @Benchmark
+    public Object decodeBuffer() throws Exception {
+        pg.getBuffer().clear();
+        return client.updateValue(pg, 2, value);
+    }
+
+    @Benchmark
+    public List<Object[]> meterReadingConverter() {
+        return meterReadingConverter.convert(cells, captureObjects, meterParams);
+    }
+
+    @Benchmark
+    public List<Object[]> itronReadingConverter() {
+        return itronReadingConverter.convert(itronCells, itronCaptureObjects, meterParams);
+    }
+
+    /**
+     * Itron profile starts with two clock columns, the second one is set when the meter reports error.
+     */
+    private static GXDLMSProfileGeneric itronProfile() {
+        GXDLMSProfileGeneric pg = new GXDLMSProfileGeneric(SimulatedMeter.PROFILE_LN);
+        pg.addCaptureObject(new GXDLMSClock(SimulatedMeter.CLOCK_LN), 2, 0);
+        pg.addCaptureObject(new GXDLMSClock("0.0.1.0.1.255"), 2, 0);
+        pg.addCaptureObject(new GXDLMSRegister(SimulatedMeter.ENERGY_LN), 2, 0);
+        return pg;
+    }
+
+    /**
+     * Rows in Itron form: clock structure (octet string, status) in the first row of every day, then empty clock.
+     */
+    private static Object[] itronCells(Object[] cells) {
+        Object[] res = new Object[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            Object[] row = (Object[]) cells[i];
+            GXStructure clock = null;
+            if (i % 96 == 0) {
+                clock = new GXStructure();
+                clock.add(octetString((GXDateTime) row[0]));
+                clock.add(0);
+            }
+            res[i] = new Object[]{clock, null, row[1]};
+        }
+        return res;
+    }
+
+    private static byte[] octetString(GXDateTime time) {
+        Calendar cal = time.getLocalCalendar();
+        int year = cal.get(Calendar.YEAR);
+        return new byte[]{(byte) (year >> 8), (byte) year, (byte) (cal.get(Calendar.MONTH) + 1),
+                (byte) cal.get(Calendar.DAY_OF_MONTH), (byte) 0xFF, (byte) cal.get(Calendar.HOUR_OF_DAY),
+                (byte) cal.get(Calendar.MINUTE), (byte) cal.get(Calendar.SECOND), (byte) 0xFF,
+                (byte) 0x80, 0, 0};
+    }
+}
@@ -0,0 +1,49 @@
+package pl.meters.gurux.benchmarks;
+
+import gurux.common.enums.TraceLevel;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.meters.gurux.dlms.DLMSReaderImpl;
+import pl.meters.gurux.dlms.RetryPolicy;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.metrics.SessionMetrics;
+import pl.meters.gurux.trace.SessionTrace;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of {@link DLMSReaderImpl} per received frame: connects and reads the load profile by range from
+ * recorded HDLC frames, without network. Run with gc profiler ({@link HotPathBenchmarks}) and divide
+ * {@code gc.alloc.rate.norm} by frames per operation printed at setup. Decoded rows are dropped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FrameAllocationBenchmark {
+
+    @Param({"1", "30"})
+    public int days;
+
+    private RecordedSession session;
+    private MeterParams meterParams;
+
+    @Setup
+    public void setUp() throws Exception {
+        session = RecordedSession.record(days);
+        meterParams = SessionDensityBenchmark.meterParams(0, days);
+        System.out.println("frames per operation: " + session.frameCount());
+    }
+
+    @Benchmark
+    public void readProfile(Blackhole blackhole) throws Exception {
+        DLMSReaderImpl reader = new DLMSReaderImpl(RecordedSession.newClient(), session.transport(), TraceLevel.OFF, false,
+                SessionTrace.NONE, SessionMetrics.NONE, RetryPolicy.FIXED.session(meterParams));
+        reader.initializeConnection();
+        GXDLMSProfileGeneric pg = RecordedSession.profile();
+        reader.readRowsByRange(pg, session.getStart(), session.getEnd(), blackhole::consume);
+    }
+}
@@ -0,0 +1,41 @@
+package pl.meters.gurux.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs JMH benchmarks of decoding, conversion, timestamps, intervals, frame receiving and response encoding with gc profiler (allocation rate per operation)
+ * and writes results as JSON, which can be compared between commits.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar pl.meters.gurux.benchmarks.HotPathBenchmarks [result.json] [benchmark regexp]}
+ */
+public class HotPathBenchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        String result = args.length > 0 ? args[0] : "jmh-result.json";
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result);
+        if (args.length > 1) {
+            options.include(args[1]);
+        } else {
+            options.include(DecodeBenchmark.class.getSimpleName())
+                    .include(ConverterBenchmark.class.getSimpleName())
+                    .include(DateTimeBenchmark.class.getSimpleName())
+                    .include(IntervalBenchmark.class.getSimpleName())
+                    .include(FrameAllocationBenchmark.class.getSimpleName())
+                    .include(ResponseFormatBenchmark.class.getSimpleName());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package pl.meters.gurux.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pl.meters.gurux.converters.ColumnarReadings;
+import pl.meters.gurux.converters.DlmsDateTime;
+import pl.meters.gurux.converters.IntervalReconstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IntervalReconstructor} on 1 year of 15-minute rows with clock in the first row of every day only
+ * and one row in 1000 missing: time column alone ({@code long[]}), column buffers and converted rows with flags
+ * and filled gaps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IntervalBenchmark {
+
+    private static final int ROWS = 366 * 96;
+    private static final long PERIOD = 15 * 60;
+
+    private DlmsDateTime dateTime;
+    private long[] source;
+    private long[] times;
+    private int[] flags;
+    private List<Object[]> rows;
+    private ColumnarReadings columns;
+    private ColumnarReadings block;
+
+    @Setup
+    public void setUp() {
+        dateTime = DlmsDateTime.systemDefault();
+        long start = dateTime.epochSecond(DlmsDateTime.parse("2024-01-01T00:00:00"));
+        source = new long[ROWS];
+        rows = new ArrayList<>(ROWS);
+        columns = new ColumnarReadings(List.of("1.0.1.8.0.255"), ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            boolean clock = i % 96 == 0;
+            source[i] = clock ? start + i * PERIOD : ColumnarReadings.NO_TIME;
+            if (i % 1000 != 999) {
+                rows.add(new Object[]{clock ? DlmsDateTime.format(dateTime.localSecond(start + i * PERIOD)) : null, (double) i});
+                columns.set(0, columns.appendRow(source[i]), i);
+            }
+        }
+        block = new ColumnarReadings(List.of("1.0.1.8.0.255"), ROWS);
+        times = new long[ROWS];
+        flags = new int[ROWS];
+    }
+
+    @Benchmark
+    public long timeColumn() {
+        System.arraycopy(source, 0, times, 0, ROWS);
+        return new IntervalReconstructor(PERIOD, IntervalReconstructor.Mode.MARK, dateTime).reconstruct(times, flags, ROWS);
+    }
+
+    @Benchmark
+    public ColumnarReadings columns() {
+        reset();
+        new IntervalReconstructor(PERIOD, IntervalReconstructor.Mode.MARK, dateTime).apply(block, null);
+        return block;
+    }
+
+    @Benchmark
+    public List<Object[]> markRows() {
+        reset();
+        return new IntervalReconstructor(PERIOD, IntervalReconstructor.Mode.MARK, dateTime).apply(block, rows);
+    }
+
+    @Benchmark
+    public List<Object[]> fillRows() {
+        reset();
+        return new IntervalReconstructor(PERIOD, IntervalReconstructor.Mode.FILL, dateTime).apply(block, rows);
+    }
+
+    /**
+     * Times of the block are reconstructed in place.
+     */
+    private void reset() {
+        block.clear();
+        block.append(columns);
+    }
+}
@@ -0,0 +1,172 @@
+package pl.meters.gurux.benchmarks;
+
+import gurux.common.ReceiveParameters;
+import gurux.dlms.GXByteBuffer;
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXDateTime;
+import gurux.dlms.GXReplyData;
+import gurux.dlms.enums.Authentication;
+import gurux.dlms.enums.InterfaceType;
+import gurux.dlms.objects.GXDLMSClock;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+import gurux.dlms.objects.GXDLMSRegister;
+import pl.meters.gurux.simulator.SimulatedMeter;
+import pl.meters.gurux.transport.DlmsTransport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HDLC frames sent by {@link SimulatedMeter} while the client connects and reads the load profile by range.
+ * Frames are recorded once and replayed to a new client, so frame parsing is measured without network and server.
+ */
+public class RecordedSession {
+
+    public static final int CLIENT_ADDRESS = 16;
+    public static final int SERVER_ADDRESS = GXDLMSClient.getServerAddress(1, 17);
+
+    @FunctionalInterface
+    interface Exchange {
+        byte[] send(byte[] request) throws Exception;
+    }
+
+    private final List<byte[]> frames;
+    private final GXDateTime start;
+    private final GXDateTime end;
+
+    private RecordedSession(List<byte[]> frames, GXDateTime start, GXDateTime end) {
+        this.frames = frames;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Records replies of the simulated meter with {@code days} of 15-minute rows.
+     */
+    public static RecordedSession record(int days) throws Exception {
+        List<Object[]> rows = SimulatedMeter.generateRows(days);
+        SimulatedMeter meter = new SimulatedMeter(rows);
+        GXDateTime start = (GXDateTime) rows.get(0)[0];
+        GXDateTime end = (GXDateTime) rows.get(rows.size() - 1)[0];
+        List<byte[]> frames = new ArrayList<>();
+        readProfile(newClient(), profile(), start, end, request -> {
+            byte[] reply = meter.handleRequest(request);
+            frames.add(reply);
+            return reply;
+        });
+        return new RecordedSession(frames, start, end);
+    }
+
+    public int frameCount() {
+        return frames.size();
+    }
+
+    public GXDateTime getStart() {
+        return start;
+    }
+
+    public GXDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Transport answering every request with the next recorded frame, for {@code DLMSReaderImpl}
+     * connecting and reading the profile by range like the recording client.
+     */
+    public DlmsTransport transport() {
+        return new DlmsTransport() {
+            private int next;
+            private byte[] reply;
+
+            @Override
+            public void open() {
+                next = 0;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void send(byte[] data) {
+                reply = frames.get(next++);
+            }
+
+            @Override
+            public boolean receive(ReceiveParameters<byte[]> p) {
+                p.setReply(reply);
+                return true;
+            }
+
+            @Override
+            public boolean receive(ReceiveParameters<byte[]> p, GXByteBuffer target) {
+                target.set(reply);
+                return true;
+            }
+
+            @Override
+            public boolean isNetwork() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Replays recorded frames to the client, returns reply with not decoded profile buffer.
+     */
+    public GXReplyData replay(GXDLMSClient client, GXDLMSProfileGeneric pg) throws Exception {
+        int[] next = new int[1];
+        return readProfile(client, pg, start, end, request -> frames.get(next[0]++));
+    }
+
+    public static GXDLMSClient newClient() {
+        return new GXDLMSClient(true, CLIENT_ADDRESS, SERVER_ADDRESS, Authentication.NONE, null, InterfaceType.HDLC);
+    }
+
+    /**
+     * Profile with capture objects of {@link SimulatedMeter}, the same as cached header.
+     */
+    public static GXDLMSProfileGeneric profile() {
+        GXDLMSProfileGeneric pg = new GXDLMSProfileGeneric(SimulatedMeter.PROFILE_LN);
+        GXDLMSClock clock = new GXDLMSClock(SimulatedMeter.CLOCK_LN);
+        pg.addCaptureObject(clock, 2, 0);
+        pg.addCaptureObject(new GXDLMSRegister(SimulatedMeter.ENERGY_LN), 2, 0);
+        pg.setSortObject(clock);
+        return pg;
+    }
+
+    private static GXReplyData readProfile(GXDLMSClient client, GXDLMSProfileGeneric pg, GXDateTime start,
+                                           GXDateTime end, Exchange exchange) throws Exception {
+        GXReplyData reply = new GXReplyData();
+        readPacket(client, client.snrmRequest(), reply, exchange);
+        client.parseUAResponse(reply.getData());
+        reply.clear();
+        readDataBlock(client, client.aarqRequest(), reply, exchange);
+        client.parseAareResponse(reply.getData());
+        reply = new GXReplyData();
+        readDataBlock(client, client.readRowsByRange(pg, start, end), reply, exchange);
+        return reply;
+    }
+
+    private static void readDataBlock(GXDLMSClient client, byte[][] data, GXReplyData reply, Exchange exchange) throws Exception {
+        for (byte[] it : data) {
+            reply.clear();
+            readPacket(client, it, reply, exchange);
+            while (reply.isMoreData()) {
+                readPacket(client, client.receiverReady(reply), reply, exchange);
+            }
+        }
+    }
+
+    private static void readPacket(GXDLMSClient client, byte[] request, GXReplyData reply, Exchange exchange) throws Exception {
+        GXReplyData notify = new GXReplyData();
+        if (!client.getData(new GXByteBuffer(exchange.send(request)), reply, notify)) {
+            throw new IllegalStateException("meter reply is not complete frame");
+        }
+    }
+}
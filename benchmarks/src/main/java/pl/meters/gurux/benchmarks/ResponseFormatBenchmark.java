@@ -0,0 +1,89 @@
+package pl.meters.gurux.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import pl.meters.gurux.converters.ColumnarFormat;
+import pl.meters.gurux.converters.ColumnarReadings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes converted rows of a 15-minute profile as JSON (default response of {@code /read}) and the same rows
+ * in column buffers as {@link ColumnarFormat}, with and without gzip. Size of the body in bytes is printed once in setup.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar org.openjdk.jmh.Main ResponseFormatBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ResponseFormatBenchmark {
+
+    private static final List<String> FIELDS = Arrays.asList("1.0.1.8.0.255", "1.0.2.8.0.255", "1.0.32.7.0.255", "1.0.13.7.0.255");
+
+    @Param("100000")
+    public int rows;
+
+    private List<Object[]> converted;
+    private ColumnarReadings readings;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() throws IOException {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        converted = new ArrayList<>(rows);
+        readings = new ColumnarReadings(FIELDS, rows);
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime rowTime = time.plusMinutes(15L * i);
+            Object[] row = {rowTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                    100_000.0 + i * 0.25, 5_000.0 + i / 3, 230.0 + i % 5, 0.95};
+            converted.add(row);
+            int index = readings.appendRow(rowTime.atZone(ZoneId.systemDefault()).toEpochSecond());
+            for (int column = 0; column < FIELDS.size(); column++) {
+                readings.set(column, index, (Double) row[column + 1]);
+            }
+        }
+        objectMapper = new ObjectMapper();
+        System.out.printf("json=%d jsonGzip=%d columnar=%d columnarGzip=%d bytes%n", json().length, jsonGzip().length,
+                columnar().length, columnarGzip().length);
+    }
+
+    @Benchmark
+    public byte[] json() throws IOException {
+        return objectMapper.writeValueAsBytes(converted);
+    }
+
+    @Benchmark
+    public byte[] jsonGzip() throws IOException {
+        return gzip(json());
+    }
+
+    @Benchmark
+    public byte[] columnar() {
+        return ColumnarFormat.toBytes(readings);
+    }
+
+    @Benchmark
+    public byte[] columnarGzip() throws IOException {
+        return gzip(columnar());
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
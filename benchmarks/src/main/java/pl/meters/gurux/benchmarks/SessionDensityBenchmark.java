@@ -0,0 +1,172 @@
+package pl.meters.gurux.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pl.meters.gurux.MeterService;
+import pl.meters.gurux.diagnostics.RowDiagnostics;
+import pl.meters.gurux.dlms.CaptureObjectCache;
+import pl.meters.gurux.dlms.DLMSReaderPool;
+import pl.meters.gurux.dlms.LinkProfiles;
+import pl.meters.gurux.dlms.ReadChunks;
+import pl.meters.gurux.dlms.RetryPolicy;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.execution.ExecutionMode;
+import pl.meters.gurux.execution.SessionThreads;
+import pl.meters.gurux.fleet.GatewayCircuitBreaker;
+import pl.meters.gurux.fleet.GatewaySessionManager;
+import pl.meters.gurux.metrics.DlmsMetrics;
+import pl.meters.gurux.simulator.SimulatedMeter;
+import pl.meters.gurux.simulator.SimulatedMeterServer;
+import pl.meters.gurux.store.HighWaterMarkStore;
+import pl.meters.gurux.store.ReadingStore;
+import pl.meters.gurux.trace.TraceSink;
+import pl.meters.gurux.transport.TransportFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many concurrent meter sessions through {@link MeterService} against {@link SimulatedMeterServer}
+ * and reports how many sessions fit into 1 GB of heap and into one CPU core.
+ * <p>
+ * Usage: {@code java -jar benchmarks.jar <platform|virtual> <sessions> <latencyMs> <days> [blocking|nio]}
+ */
+public class SessionDensityBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        ExecutionMode mode = ExecutionMode.valueOf(arg(args, 0, "virtual").toUpperCase());
+        int sessions = Integer.parseInt(arg(args, 1, "5000"));
+        int latencyMs = Integer.parseInt(arg(args, 2, "200"));
+        int days = Integer.parseInt(arg(args, 3, "1"));
+        // Blocking GXNet holds receiver thread per session, virtual threads need NIO transport to save OS threads.
+        String transport = arg(args, 4, mode == ExecutionMode.VIRTUAL ? "nio" : "blocking");
+
+        List<Object[]> rows = SimulatedMeter.generateRows(days);
+        TransportFactory transportFactory = new TransportFactory(transport, 2, 10000, mode);
+        try (SimulatedMeterServer server = SimulatedMeterServer.start(0, rows, latencyMs)) {
+            MeterService meterService = new MeterService(
+                    new DLMSReaderPool(new SimpleMeterRegistry(), false, 100, 3600, 10, 1),
+                    new CaptureObjectCache(0, ""),
+                    new HighWaterMarkStore("target/benchmark-data"),
+                    new TraceSink("target/benchmark-trace", 64, 10, 1024, false),
+                    new RowDiagnostics(0, 0),
+                    new DlmsMetrics(new SimpleMeterRegistry()),
+                    RetryPolicy.FIXED,
+                    new GatewayCircuitBreaker(new SimpleMeterRegistry(), Integer.MAX_VALUE, 0),
+                    transportFactory,
+                    new GatewaySessionManager(transportFactory, new SimpleMeterRegistry(), false, 0, 0),
+                    new LinkProfiles(false, "2030,1,65535", "128,1,65535", ""),
+                    new ReadChunks(0, 0),
+                    new ReadingStore(false, "target/benchmark-readings", 0));
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            com.sun.management.OperatingSystemMXBean os =
+                    (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+            System.gc();
+            long heapBaseline = memory.getHeapMemoryUsage().getUsed();
+            long rssBaseline = residentSetSize();
+            AtomicLong peakHeap = new AtomicLong(heapBaseline);
+            AtomicLong peakRss = new AtomicLong(rssBaseline);
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger peakInFlight = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+
+            Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    peakRss.accumulateAndGet(residentSetSize(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+
+            CountDownLatch startGate = new CountDownLatch(1);
+            ExecutorService executor = SessionThreads.executor(mode, "bench-session-", sessions);
+            long cpuStart = os.getProcessCpuTime();
+            long wallStart = System.nanoTime();
+            for (int i = 0; i < sessions; i++) {
+                MeterParams meterParams = meterParams(server.getPort(), days);
+                executor.execute(() -> {
+                    try {
+                        startGate.await();
+                        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        meterService.readMeterOrFail(meterParams);
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            startGate.countDown();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+            double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+            double cpuSeconds = (os.getProcessCpuTime() - cpuStart) / 1e9;
+            sampler.interrupt();
+
+            double heapGb = (peakHeap.get() - heapBaseline) / (double) (1L << 30);
+            double rssGb = (peakRss.get() - rssBaseline) / (double) (1L << 30);
+            double busyCores = cpuSeconds / wallSeconds;
+            System.out.printf("mode=%s transport=%s sessions=%d failed=%d latencyMs=%d days=%d%n", mode, transport, sessions,
+                    failed.get(), latencyMs, days);
+            System.out.printf("wall=%.1fs cpu=%.1fs peakInFlight=%d%n", wallSeconds, cpuSeconds, peakInFlight.get());
+            System.out.printf("heap=%.1fMB sessionsPerGBHeap=%.0f%n", heapGb * 1024, peakInFlight.get() / heapGb);
+            System.out.printf("rss=%.1fMB sessionsPerGBRss=%.0f%n", rssGb * 1024, peakInFlight.get() / rssGb);
+            System.out.printf("busyCores=%.2f sessionsPerCore=%.0f%n", busyCores, peakInFlight.get() / busyCores);
+        } finally {
+            transportFactory.shutdown();
+        }
+    }
+
+    static MeterParams meterParams(int port, int days) {
+        LocalDateTime to = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
+        return MeterParams.builder()
+                .meterProducer("SIMULATOR")
+                .hostName("localhost")
+                .port((short) port)
+                .clientAddress(16)
+                .logicalAddress(1)
+                .physicalAddress(17)
+                .authenticationStr("NONE")
+                .useLogicalNameReferencing(true)
+                .from(to.minusDays(days))
+                .to(to)
+                .clockObis(SimulatedMeter.CLOCK_LN)
+                .profileToReadLn(SimulatedMeter.PROFILE_LN)
+                .fieldsOfProfileLn(Collections.singletonList(SimulatedMeter.ENERGY_LN))
+                .build();
+    }
+
+    /**
+     * Resident set size of this process, includes native stacks of platform threads which heap does not show.
+     */
+    static long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (Exception e) {
+            // Not Linux.
+        }
+        return 0;
+    }
+
+    private static String arg(String[] args, int index, String defaultValue) {
+        return args.length > index ? args[index] : defaultValue;
+    }
+}
@@ -0,0 +1,90 @@
+package pl.meters.gurux.benchmarks;
+
+import gurux.common.GXCommon;
+import gurux.common.enums.TraceLevel;
+import gurux.dlms.GXDateTime;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+import gurux.dlms.objects.GXDLMSRegister;
+import org.junit.jupiter.api.Test;
+import pl.meters.gurux.converters.ColumnarConverter;
+import pl.meters.gurux.converters.ColumnarReadings;
+import pl.meters.gurux.converters.MeterReadingConverter;
+import pl.meters.gurux.converters.ProjectionPlan;
+import pl.meters.gurux.converters.RowConverter;
+import pl.meters.gurux.dlms.DLMSReaderImpl;
+import pl.meters.gurux.dlms.RetryPolicy;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.metrics.SessionMetrics;
+import pl.meters.gurux.trace.SessionTrace;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Rows of the recorded reading converted by {@link MeterReadingConverter} are the same as converted the way
+ * the service did before projection plans and column buffers (time through {@code Calendar}, value through
+ * {@code String}), also when the register has scaler applied by Gurux.
+ */
+class ConverterRegressionTest {
+
+    private static final int DAYS = 2;
+
+    @Test
+    void rowsMatchPreviousConversion() throws Exception {
+        compare(1);
+    }
+
+    @Test
+    void scaledRowsMatchPreviousConversion() throws Exception {
+        compare(0.01);
+    }
+
+    private static void compare(double scaler) throws Exception {
+        RecordedSession session = RecordedSession.record(DAYS);
+        MeterParams meterParams = SessionDensityBenchmark.meterParams(0, DAYS);
+        DLMSReaderImpl reader = new DLMSReaderImpl(RecordedSession.newClient(), session.transport(), TraceLevel.OFF, false,
+                SessionTrace.NONE, SessionMetrics.NONE, RetryPolicy.FIXED.session(meterParams));
+        reader.initializeConnection();
+        GXDLMSProfileGeneric pg = RecordedSession.profile();
+        ((GXDLMSRegister) pg.getCaptureObjects().get(1).getKey()).setScaler(scaler);
+        List<Object[]> cells = new ArrayList<>();
+        reader.readRowsByRange(pg, session.getStart(), session.getEnd(), block -> {
+            for (Object row : block) {
+                cells.add((Object[]) row);
+            }
+        });
+        assertFalse(cells.isEmpty());
+
+        MeterReadingConverter converter = new MeterReadingConverter();
+        ProjectionPlan plan = converter.compile(pg.getCaptureObjects(), meterParams);
+        RowConverter rowConverter = converter.rowConverter(plan);
+        ColumnarConverter columnarConverter = converter.columnarConverter(plan);
+        ColumnarReadings columns = new ColumnarReadings(meterParams.getFieldsOfProfileLn(), cells.size());
+        for (Object[] row : cells) {
+            columnarConverter.convert(row, columns);
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            Object[] row = cells.get(i);
+            Object[] converted = rowConverter.convert(row);
+            assertEquals(previousTime(row[0]), converted[0], "time of row " + i);
+            assertEquals(previousValue(row[1]), converted[1], "value of row " + i);
+            assertEquals(((Double) previousValue(row[1])).doubleValue(), columns.value(0, i), "column value of row " + i);
+        }
+    }
+
+    private static String previousTime(Object cell) {
+        GXDateTime time = (GXDateTime) cell;
+        return LocalDateTime.ofInstant(time.getLocalCalendar().toInstant(), ZoneId.systemDefault())
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    private static Object previousValue(Object cell) {
+        return Double.valueOf(cell instanceof byte[] ? GXCommon.bytesToHex((byte[]) cell) : String.valueOf(cell));
+    }
+}
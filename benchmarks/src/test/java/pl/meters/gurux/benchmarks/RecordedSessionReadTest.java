@@ -0,0 +1,48 @@
+package pl.meters.gurux.benchmarks;
+
+import gurux.common.enums.TraceLevel;
+import gurux.dlms.GXDateTime;
+import gurux.dlms.objects.GXDLMSProfileGeneric;
+import org.junit.jupiter.api.Test;
+import pl.meters.gurux.dlms.DLMSReaderImpl;
+import pl.meters.gurux.dlms.RetryPolicy;
+import pl.meters.gurux.metrics.SessionMetrics;
+import pl.meters.gurux.simulator.SimulatedMeter;
+import pl.meters.gurux.trace.SessionTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays recorded reading of the simulated meter through {@link DLMSReaderImpl}, rows are passed block by block.
+ */
+class RecordedSessionReadTest {
+
+    private static final int DAYS = 7;
+
+    @Test
+    void passesEveryRowOfMultiBlockBuffer() throws Exception {
+        RecordedSession session = RecordedSession.record(DAYS);
+        DLMSReaderImpl reader = new DLMSReaderImpl(RecordedSession.newClient(), session.transport(), TraceLevel.OFF, false,
+                SessionTrace.NONE, SessionMetrics.NONE, RetryPolicy.FIXED.session(SessionDensityBenchmark.meterParams(0, DAYS)));
+        reader.initializeConnection();
+        GXDLMSProfileGeneric pg = RecordedSession.profile();
+        List<Object[]> rows = new ArrayList<>();
+        int[] blocks = new int[1];
+        reader.readRowsByRange(pg, session.getStart(), session.getEnd(), cells -> {
+            blocks[0]++;
+            for (Object row : cells) {
+                rows.add((Object[]) row);
+            }
+        });
+
+        int entriesInUse = SimulatedMeter.generateRows(DAYS).size();
+        assertTrue(blocks[0] > 1, "rows should arrive in more than one block, got " + blocks[0]);
+        assertEquals(entriesInUse, rows.size());
+        assertEquals(session.getStart().getValue(), ((GXDateTime) rows.get(0)[0]).getValue());
+        assertEquals(session.getEnd().getValue(), ((GXDateTime) rows.get(rows.size() - 1)[0]).getValue());
+    }
+}
@@ -0,0 +1,92 @@
+package pl.meters.gurux.simulator;
+
+/**
+ * Minimal HDLC frame helpers for faults the Gurux server does not produce itself.
+ */
+final class HdlcFrames {
+
+    private static final int FLAG = 0x7E;
+    private static final int FRMR = 0x97;
+
+    private HdlcFrames() {
+    }
+
+    /**
+     * True if the frame is an information frame (control field bit 0 clear).
+     */
+    static boolean isInformation(byte[] frame) {
+        int control = controlIndex(frame);
+        return control > 0 && control < frame.length && (frame[control] & 1) == 0;
+    }
+
+    /**
+     * FRMR reply to the request, Gurux client reports it as {@code REJECTED}.
+     */
+    static byte[] rejected(byte[] request) {
+        int control = controlIndex(request);
+        if (control < 0) {
+            return null;
+        }
+        // Destination of the reply is source of the request and vice versa.
+        byte[] destination = slice(request, sourceStart(request), control);
+        byte[] source = slice(request, 3, sourceStart(request));
+        int length = 2 + destination.length + source.length + 1 + 2;
+        byte[] frame = new byte[length + 2];
+        int pos = 0;
+        frame[pos++] = (byte) FLAG;
+        frame[pos++] = (byte) (0xA0 | ((length >> 8) & 0x07));
+        frame[pos++] = (byte) length;
+        System.arraycopy(destination, 0, frame, pos, destination.length);
+        pos += destination.length;
+        System.arraycopy(source, 0, frame, pos, source.length);
+        pos += source.length;
+        frame[pos++] = (byte) FRMR;
+        int fcs = fcs16(frame, 1, pos - 1);
+        frame[pos++] = (byte) fcs;
+        frame[pos++] = (byte) (fcs >> 8);
+        frame[pos] = (byte) FLAG;
+        return frame;
+    }
+
+    private static int sourceStart(byte[] frame) {
+        return addressEnd(frame, 3);
+    }
+
+    private static int controlIndex(byte[] frame) {
+        if (frame.length < 9 || (frame[0] & 0xFF) != FLAG) {
+            return -1;
+        }
+        return addressEnd(frame, sourceStart(frame));
+    }
+
+    /**
+     * Index after HDLC address starting at {@code start}, last address byte has bit 0 set.
+     */
+    private static int addressEnd(byte[] frame, int start) {
+        int pos = start;
+        while (pos < frame.length && (frame[pos] & 1) == 0) {
+            pos++;
+        }
+        return pos + 1;
+    }
+
+    private static byte[] slice(byte[] data, int from, int to) {
+        byte[] result = new byte[to - from];
+        System.arraycopy(data, from, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * FCS-16 (X.25) of {@code count} bytes.
+     */
+    private static int fcs16(byte[] data, int offset, int count) {
+        int fcs = 0xFFFF;
+        for (int i = offset; i < offset + count; i++) {
+            fcs ^= data[i] & 0xFF;
+            for (int bit = 0; bit < 8; bit++) {
+                fcs = (fcs & 1) != 0 ? (fcs >>> 1) ^ 0x8408 : fcs >>> 1;
+            }
+        }
+        return ~fcs & 0xFFFF;
+    }
+}
@@ -0,0 +1,33 @@
+package pl.meters.gurux.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts simulated meters on consecutive ports for load and regression tests of the service, e.g.
+ * {@code java -jar meter-simulator.jar --meters=2000 --base-port=5000 --days=30 --latency-ms=200 --loss=0.01}.
+ * All meters share the same generated profile.
+ */
+public class MeterSimulator {
+
+    public static void main(String[] args) throws Exception {
+        SimulatorOptions options = SimulatorOptions.parse(args);
+        ProfileData data = ProfileData.generate(options.getDays(), options.isItron(), options.getErrorEvery());
+        List<SimulatedMeterServer> servers = new ArrayList<>(options.getMeters());
+        for (int i = 0; i < options.getMeters(); i++) {
+            servers.add(SimulatedMeterServer.start(options.getBasePort() + i, data, options));
+        }
+        System.out.println("started " + options + ", " + data.getRows().size() + " rows per meter, profile "
+                + SimulatedMeter.PROFILE_LN + ", clock " + SimulatedMeter.CLOCK_LN + ", energy " + SimulatedMeter.ENERGY_LN);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (SimulatedMeterServer server : servers) {
+                try {
+                    server.close();
+                } catch (Exception e) {
+                    // Exiting anyway.
+                }
+            }
+        }));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,111 @@
+package pl.meters.gurux.simulator;
+
+import gurux.dlms.GXDateTime;
+import gurux.dlms.GXStructure;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Generated 15-minute load profile rows shared by all simulated meters.
+ * <p>
+ * Standard rows are (clock, energy). Itron rows are (clock status, error clock status, energy): clock structure
+ * (date-time octet string, status) is sent in the first row of the day only, in rows with error status the clock
+ * is sent in the second column, other rows have no clock and the time is counted by the reader.
+ */
+public final class ProfileData {
+
+    public static final int CAPTURE_PERIOD = 900;
+    public static final int ITRON_ERROR_STATUS = 8;
+
+    private final List<Object[]> rows;
+    private final long[] times;
+    private final boolean itron;
+
+    private ProfileData(List<Object[]> rows, long[] times, boolean itron) {
+        this.rows = Collections.unmodifiableList(rows);
+        this.times = times;
+        this.itron = itron;
+    }
+
+    /**
+     * Generates {@code days} of rows ending at current hour. In Itron form every {@code errorEvery}-th row
+     * (0 - never) has error status.
+     */
+    public static ProfileData generate(int days, boolean itron, int errorEvery) {
+        int count = days * 24 * 3600 / CAPTURE_PERIOD;
+        Instant end = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        Instant time = end.minusSeconds((long) count * CAPTURE_PERIOD);
+        List<Object[]> rows = new ArrayList<>(count);
+        long[] times = new long[count];
+        long energy = 100_000;
+        for (int i = 0; i < count; i++) {
+            time = time.plusSeconds(CAPTURE_PERIOD);
+            times[i] = time.getEpochSecond();
+            energy += 1 + (i % 7);
+            if (!itron) {
+                rows.add(new Object[]{new GXDateTime(Date.from(time)), energy});
+            } else if (errorEvery > 0 && i % errorEvery == errorEvery - 1) {
+                rows.add(new Object[]{null, clockStatus(time, ITRON_ERROR_STATUS), energy});
+            } else if (i == 0 || time.atZone(ZoneId.systemDefault()).getHour() == 0
+                    && time.atZone(ZoneId.systemDefault()).getMinute() == 0) {
+                rows.add(new Object[]{clockStatus(time, 0), null, energy});
+            } else {
+                rows.add(new Object[]{null, null, energy});
+            }
+        }
+        return new ProfileData(rows, times, itron);
+    }
+
+    /**
+     * Standard rows (clock, energy) generated elsewhere.
+     */
+    public static ProfileData of(List<Object[]> rows) {
+        long[] times = new long[rows.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = ((GXDateTime) rows.get(i)[0]).getMeterCalendar().getTime() / 1000;
+        }
+        return new ProfileData(new ArrayList<>(rows), times, false);
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    public boolean isItron() {
+        return itron;
+    }
+
+    /**
+     * Entries (from 1) of rows captured between {@code from} and {@code to} epoch seconds.
+     *
+     * @return from and to entry, or null if no row was captured in the range.
+     */
+    public int[] entries(long from, long to) {
+        int first = 0;
+        while (first < times.length && times[first] < from) {
+            first++;
+        }
+        int last = times.length - 1;
+        while (last >= first && times[last] > to) {
+            last--;
+        }
+        return (first > last) ? null : new int[]{first + 1, last + 1};
+    }
+
+    private static GXStructure clockStatus(Instant time, int status) {
+        ZonedDateTime local = time.atZone(ZoneId.systemDefault());
+        GXStructure structure = new GXStructure();
+        structure.add(new byte[]{(byte) (local.getYear() >> 8), (byte) local.getYear(), (byte) local.getMonthValue(),
+                (byte) local.getDayOfMonth(), (byte) 0xFF, (byte) local.getHour(), (byte) local.getMinute(),
+                (byte) local.getSecond(), (byte) 0xFF, (byte) 0x80, 0, 0});
+        structure.add(status);
+        return structure;
+    }
+}
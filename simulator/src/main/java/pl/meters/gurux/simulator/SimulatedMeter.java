@@ -0,0 +1,160 @@
+package pl.meters.gurux.simulator;
+
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXDLMSConnectionEventArgs;
+import gurux.dlms.GXDLMSServer;
+import gurux.dlms.GXDateTime;
+import gurux.dlms.GXStructure;
+import gurux.dlms.ValueEventArgs;
+import gurux.dlms.enums.*;
+import gurux.dlms.objects.*;
+
+import java.util.List;
+
+/**
+ * Meter answering like real DLMS meter with one 15-minute load profile (clock and energy register, or Itron
+ * clock status columns and energy register) over HDLC or WRAPPER framing.
+ * Gurux server filters the buffer for range reads by the clock column. Itron rows have no clock in most rows,
+ * so their range reads are answered as entry reads of the rows captured in the range.
+ */
+public class SimulatedMeter extends GXDLMSServer {
+
+    public static final String CLOCK_LN = "0.0.1.0.0.255";
+    public static final String ERROR_CLOCK_LN = "0.0.96.240.1.255";
+    public static final String ENERGY_LN = "1.0.1.8.0.255";
+    public static final String PROFILE_LN = "1.0.99.1.0.255";
+    public static final int CAPTURE_PERIOD = ProfileData.CAPTURE_PERIOD;
+
+    private final ProfileData data;
+    private final GXDLMSProfileGeneric profile;
+
+    public SimulatedMeter(List<Object[]> rows) {
+        this(ProfileData.of(rows), InterfaceType.HDLC);
+    }
+
+    public SimulatedMeter(ProfileData data, InterfaceType framing) {
+        super(true, framing);
+        this.data = data;
+        GXDLMSClock clock = new GXDLMSClock(CLOCK_LN);
+        GXDLMSRegister energy = new GXDLMSRegister(ENERGY_LN);
+        profile = new GXDLMSProfileGeneric(PROFILE_LN);
+        profile.addCaptureObject(clock, 2, 0);
+        if (data.isItron()) {
+            GXDLMSData errorClock = new GXDLMSData(ERROR_CLOCK_LN);
+            profile.addCaptureObject(errorClock, 2, 0);
+            getItems().add(errorClock);
+        } else {
+            profile.setSortObject(clock);
+        }
+        profile.addCaptureObject(energy, 2, 0);
+        profile.setCapturePeriod(CAPTURE_PERIOD);
+        profile.getBuffer().addAll(data.getRows());
+        profile.setEntriesInUse(data.getRows().size());
+        profile.setProfileEntries(data.getRows().size());
+        getItems().add(new GXDLMSAssociationLogicalName());
+        getItems().add(clock);
+        getItems().add(energy);
+        getItems().add(profile);
+        initialize();
+    }
+
+    /**
+     * Generates {@code days} of 15-minute rows (clock, energy) ending at current hour.
+     */
+    public static List<Object[]> generateRows(int days) {
+        return ProfileData.generate(days, false, 0).getRows();
+    }
+
+    @Override
+    protected boolean isTarget(int serverAddress, int clientAddress) {
+        return true;
+    }
+
+    @Override
+    protected SourceDiagnostic onValidateAuthentication(Authentication authentication, byte[] password) {
+        return SourceDiagnostic.NONE;
+    }
+
+    @Override
+    protected GXDLMSObject onFindObject(ObjectType objectType, int sn, String ln) {
+        return null;
+    }
+
+    @Override
+    protected AccessMode getAttributeAccess(ValueEventArgs arg) {
+        return AccessMode.READ;
+    }
+
+    @Override
+    protected MethodAccessMode getMethodAccess(ValueEventArgs arg) {
+        return MethodAccessMode.NO_ACCESS;
+    }
+
+    @Override
+    protected void onPreRead(ValueEventArgs[] args) {
+        if (!data.isItron()) {
+            return;
+        }
+        for (ValueEventArgs e : args) {
+            if (e.getTarget() == profile && e.getIndex() == 2 && e.getSelector() == 1) {
+                List<?> range = (List<?>) e.getParameters();
+                int[] entries = data.entries(epochSecond(range.get(1)), epochSecond(range.get(2)));
+                if (entries != null) {
+                    GXStructure byEntry = new GXStructure();
+                    byEntry.add((long) entries[0]);
+                    byEntry.add((long) entries[1]);
+                    byEntry.add(1);
+                    byEntry.add(0);
+                    e.setSelector(2);
+                    e.setParameters(byEntry);
+                }
+            }
+        }
+    }
+
+    private static long epochSecond(Object value) {
+        GXDateTime time = (value instanceof GXDateTime) ? (GXDateTime) value
+                : (GXDateTime) GXDLMSClient.changeType((byte[]) value, DataType.DATETIME);
+        return time.getMeterCalendar().getTime() / 1000;
+    }
+
+    @Override
+    protected void onPostRead(ValueEventArgs[] args) {
+    }
+
+    @Override
+    protected void onPreWrite(ValueEventArgs[] args) {
+    }
+
+    @Override
+    protected void onPostWrite(ValueEventArgs[] args) {
+    }
+
+    @Override
+    protected void onPreAction(ValueEventArgs[] args) {
+    }
+
+    @Override
+    protected void onPostAction(ValueEventArgs[] args) {
+    }
+
+    @Override
+    protected void onPreGet(ValueEventArgs[] args) {
+    }
+
+    @Override
+    protected void onPostGet(ValueEventArgs[] args) {
+    }
+
+    @Override
+    protected void onConnected(GXDLMSConnectionEventArgs connectionInfo) {
+    }
+
+    @Override
+    protected void onInvalidConnection(GXDLMSConnectionEventArgs connectionInfo) {
+    }
+
+    @Override
+    protected void onDisconnected(GXDLMSConnectionEventArgs connectionInfo) {
+    }
+}
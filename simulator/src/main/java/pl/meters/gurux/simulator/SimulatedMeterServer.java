@@ -0,0 +1,97 @@
+package pl.meters.gurux.simulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP server where every accepted connection is separate simulated meter. Replies are delayed by
+ * {@code latencyMs} and by transfer time at {@code bandwidthBps} to imitate slow link, lost with probability
+ * {@code loss}, and HDLC I-frames are answered with FRMR with probability {@code rejected}. Every connection
+ * is served on its own virtual thread.
+ */
+public class SimulatedMeterServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ProfileData data;
+    private final SimulatorOptions options;
+
+    private SimulatedMeterServer(ServerSocket serverSocket, ProfileData data, SimulatorOptions options) {
+        this.serverSocket = serverSocket;
+        this.data = data;
+        this.options = options;
+    }
+
+    public static SimulatedMeterServer start(int port, List<Object[]> rows, int latencyMs) throws IOException {
+        SimulatorOptions options = new SimulatorOptions();
+        options.setLatencyMs(latencyMs);
+        return start(port, ProfileData.of(rows), options);
+    }
+
+    public static SimulatedMeterServer start(int port, ProfileData data, SimulatorOptions options) throws IOException {
+        SimulatedMeterServer server = new SimulatedMeterServer(new ServerSocket(port, 16384), data, options);
+        Thread.ofVirtual().name("meter-accept-", server.getPort()).start(server::acceptLoop);
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().name("meter-", socket.getPort()).start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        SimulatedMeter meter = new SimulatedMeter(data, options.getFraming());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] buff = new byte[2048];
+        try (Socket s = socket; InputStream in = s.getInputStream(); OutputStream out = s.getOutputStream()) {
+            int count;
+            while ((count = in.read(buff)) > 0) {
+                byte[] request = Arrays.copyOf(buff, count);
+                byte[] reply;
+                if (options.getRejected() > 0 && HdlcFrames.isInformation(request) && random.nextDouble() < options.getRejected()) {
+                    reply = HdlcFrames.rejected(request);
+                } else {
+                    reply = meter.handleRequest(request);
+                }
+                if (reply == null || reply.length == 0 || (options.getLoss() > 0 && random.nextDouble() < options.getLoss())) {
+                    continue;
+                }
+                if (options.getLatencyMs() > 0) {
+                    Thread.sleep(options.getLatencyMs());
+                }
+                if (options.getBandwidthBps() > 0) {
+                    TimeUnit.NANOSECONDS.sleep(reply.length * 8_000_000_000L / options.getBandwidthBps());
+                }
+                out.write(reply);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Client closed connection.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,102 @@
+package pl.meters.gurux.simulator;
+
+import gurux.dlms.enums.InterfaceType;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of simulated meters, parsed from {@code --name=value} command line arguments.
+ */
+@Getter
+@Setter
+public class SimulatorOptions {
+
+    /**
+     * Number of meters, each listens on its own port starting at {@code basePort}.
+     */
+    private int meters = 1;
+    private int basePort = 4061;
+    private InterfaceType framing = InterfaceType.HDLC;
+    /**
+     * Days of 15-minute profile in every meter.
+     */
+    private int days = 30;
+    /**
+     * Profile with Itron clock status columns instead of clock.
+     */
+    private boolean itron;
+    /**
+     * Every n-th Itron row has clock with error status, 0 - never.
+     */
+    private int errorEvery;
+    /**
+     * Delay before every reply.
+     */
+    private int latencyMs;
+    /**
+     * Link speed in bits per second, 0 - unlimited.
+     */
+    private long bandwidthBps;
+    /**
+     * Probability (0 - 1) that reply is lost.
+     */
+    private double loss;
+    /**
+     * Probability (0 - 1) that HDLC I-frame is answered with FRMR (rejected), as busy gateways do.
+     */
+    private double rejected;
+
+    public static SimulatorOptions parse(String[] args) {
+        SimulatorOptions options = new SimulatorOptions();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("unknown argument " + arg);
+            }
+            String name = arg.substring(2, eq < 0 ? arg.length() : eq);
+            String value = eq < 0 ? "true" : arg.substring(eq + 1);
+            switch (name) {
+                case "meters":
+                    options.setMeters(Integer.parseInt(value));
+                    break;
+                case "base-port":
+                    options.setBasePort(Integer.parseInt(value));
+                    break;
+                case "framing":
+                    options.setFraming(InterfaceType.valueOf(value.toUpperCase()));
+                    break;
+                case "days":
+                    options.setDays(Integer.parseInt(value));
+                    break;
+                case "itron":
+                    options.setItron(Boolean.parseBoolean(value));
+                    break;
+                case "error-every":
+                    options.setErrorEvery(Integer.parseInt(value));
+                    break;
+                case "latency-ms":
+                    options.setLatencyMs(Integer.parseInt(value));
+                    break;
+                case "bandwidth-bps":
+                    options.setBandwidthBps(Long.parseLong(value));
+                    break;
+                case "loss":
+                    options.setLoss(Double.parseDouble(value));
+                    break;
+                case "rejected":
+                    options.setRejected(Double.parseDouble(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        return meters + " meters from port " + basePort + ", " + framing + ", " + days + " days"
+                + (itron ? " itron (error every " + errorEvery + ")" : "") + ", latency " + latencyMs + " ms, bandwidth "
+                + (bandwidthBps > 0 ? bandwidthBps + " bps" : "unlimited") + ", loss " + loss + ", rejected " + rejected;
+    }
+}
@@ -0,0 +1,13 @@
+package pl.meters.gurux;
+
+import pl.meters.gurux.converters.ColumnarReadings;
+
+/**
+ * Receives rows of each block of the buffer from {@link MeterService} in column buffers, buffers are reused
+ * for the next block when {@code accept} returns.
+ */
+@FunctionalInterface
+public interface ColumnarSink {
+
+    void accept(ColumnarReadings readings) throws Exception;
+}
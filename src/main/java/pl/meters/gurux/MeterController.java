@@ -1,21 +1,114 @@
 package pl.meters.gurux;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.meters.gurux.converters.ColumnarFormat;
+import pl.meters.gurux.converters.ColumnarReadings;
 import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.dto.MeterReadResult;
+import pl.meters.gurux.fleet.FleetReadService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
+@Slf4j
 @RequiredArgsConstructor
 public class MeterController {
 
     private final MeterService meterService;
+    private final FleetReadService fleetReadService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Readings of the meter, header {@code X-Readings-Complete: false} when reading failed and only rows read
+     * before the failure are returned. JSON rows by default, {@link ColumnarFormat} when requested by
+     * {@code Accept} header.
+     */
     @PostMapping("/read")
-    public List<Object[]> getReadings(@RequestBody MeterParams meterParams) {
-        return meterService.readMeter(meterParams);
+    public ResponseEntity<?> getReadings(@RequestBody MeterParams meterParams,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (ColumnarFormat.accepts(accept)) {
+            ColumnarReadings readings = new ColumnarReadings(meterParams.getFieldsOfProfileLn(), 0);
+            boolean complete = meterService.readMeter(meterParams, readings);
+            return ResponseEntity.ok().header("X-Readings-Complete", String.valueOf(complete))
+                    .contentType(MediaType.parseMediaType(ColumnarFormat.MEDIA_TYPE)).body(ColumnarFormat.toBytes(readings));
+        }
+        List<Object[]> readings = new ArrayList<>();
+        boolean complete = meterService.readMeter(meterParams, readings);
+        return ResponseEntity.ok().header("X-Readings-Complete", String.valueOf(complete)).body(readings);
     }
 
+    @PostMapping("/read/batch")
+    public List<MeterReadResult> getBatchReadings(@RequestBody List<MeterParams> meterParams) {
+        return fleetReadService.readMeters(meterParams);
+    }
+
+    /**
+     * Readings written as they are read from the meter, one JSON array per line. When reading fails
+     * after some rows were sent, the last line is {@code {"error": "..."}}, with {@code readTo} - time of the last
+     * complete row, when reading was resumed.
+     */
+    @PostMapping(value = "/read/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamReadings(@RequestBody MeterParams meterParams) {
+        ObjectWriter rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                try {
+                    meterService.readMeterOrFail(meterParams, ReadProgressListener.NONE, rows -> {
+                        try {
+                            for (Object[] row : rows) {
+                                rowWriter.writeValue(generator, row);
+                                generator.writeRaw('\n');
+                            }
+                            generator.flush();
+                        } catch (IOException e) {
+                            // Client is gone, told apart from IOExceptions of the meter connection.
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (Exception e) {
+                    IOException responseError = responseError(e);
+                    if (responseError != null) {
+                        throw responseError;
+                    }
+                    log.info("problem with reading  meter {} : {} ", meterParams.getHostName(), meterParams.getPort());
+                    log.info(e.getMessage());
+                    generator.writeStartObject();
+                    generator.writeStringField("error", e.getMessage());
+                    if (e instanceof ReadIncompleteException) {
+                        generator.writeStringField("readTo", ((ReadIncompleteException) e).getReadTo().toString());
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().body(body);
+    }
+
+    /**
+     * Failure of writing the response wrapped by the sink, possibly wrapped again by {@link MeterService}.
+     */
+    private static IOException responseError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UncheckedIOException) {
+                return ((UncheckedIOException) cause).getCause();
+            }
+        }
+        return null;
+    }
 }
@@ -3,110 +3,698 @@ package pl.meters.gurux;
 
 import gurux.common.enums.TraceLevel;
 import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXDLMSException;
 import gurux.dlms.GXDateTime;
 import gurux.dlms.enums.Authentication;
 import gurux.dlms.enums.InterfaceType;
-import gurux.dlms.objects.GXDLMSCaptureObject;
 import gurux.dlms.objects.GXDLMSClock;
-import gurux.dlms.objects.GXDLMSObject;
 import gurux.dlms.objects.GXDLMSProfileGeneric;
 import gurux.dlms.secure.GXDLMSSecureClient;
-import gurux.net.GXNet;
-import gurux.net.enums.NetworkType;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.RestController;
+import pl.meters.gurux.converters.ColumnarConverter;
+import pl.meters.gurux.converters.ColumnarReadings;
+import pl.meters.gurux.converters.DlmsDateTime;
+import pl.meters.gurux.converters.IntervalReconstructor;
 import pl.meters.gurux.converters.ItronReadingConverter;
 import pl.meters.gurux.converters.MeterReadingConverter;
+import pl.meters.gurux.converters.ProjectionPlan;
 import pl.meters.gurux.converters.ReadingsConverter;
+import pl.meters.gurux.converters.RowConverter;
+import pl.meters.gurux.dlms.BufferDecodeException;
+import pl.meters.gurux.dlms.CaptureObjectCache;
 import pl.meters.gurux.dlms.DLMSReader;
 import pl.meters.gurux.dlms.DLMSReaderImpl;
+import pl.meters.gurux.dlms.DLMSReaderPool;
+import pl.meters.gurux.dlms.LinkProfile;
+import pl.meters.gurux.dlms.LinkProfiles;
+import pl.meters.gurux.dlms.PooledAssociation;
+import pl.meters.gurux.dlms.ReadChunks;
+import pl.meters.gurux.dlms.RetryPolicy;
+import pl.meters.gurux.dlms.RowsConsumer;
+import pl.meters.gurux.diagnostics.DecodedBufferListener;
+import pl.meters.gurux.diagnostics.RowDiagnostics;
+import pl.meters.gurux.diagnostics.RowSampler;
 import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.fleet.GatewayCircuitBreaker;
+import pl.meters.gurux.fleet.GatewayKey;
+import pl.meters.gurux.fleet.GatewaySessionManager;
+import pl.meters.gurux.metrics.DlmsMetrics;
+import pl.meters.gurux.metrics.SessionMetrics;
+import pl.meters.gurux.metrics.SessionPhase;
+import pl.meters.gurux.store.HighWaterMarkStore;
+import pl.meters.gurux.store.ReadingStore;
+import pl.meters.gurux.trace.TraceSink;
+import pl.meters.gurux.transport.DlmsTransport;
+import pl.meters.gurux.transport.TransportFactory;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @Slf4j
+@RequiredArgsConstructor
 public class MeterService {
 
+    private final DLMSReaderPool readerPool;
+    private final CaptureObjectCache captureObjectCache;
+    private final HighWaterMarkStore highWaterMarkStore;
+    private final TraceSink traceSink;
+    private final RowDiagnostics rowDiagnostics;
+    private final DlmsMetrics dlmsMetrics;
+    private final RetryPolicy retryPolicy;
+    private final GatewayCircuitBreaker gatewayBreaker;
+    private final TransportFactory transportFactory;
+    private final GatewaySessionManager gatewaySessions;
+    private final LinkProfiles linkProfiles;
+    private final ReadChunks readChunks;
+    private final ReadingStore readingStore;
+
     public List<Object[]> readMeter(MeterParams meterParams) {
         List<Object[]> resList = new ArrayList<>();
-        DLMSReader reader = null;
+        readMeter(meterParams, resList);
+        return resList;
+    }
+
+    /**
+     * Reads profile adding rows to {@code res}, when reading fails rows read before the failure are kept.
+     *
+     * @return false if reading failed.
+     */
+    public boolean readMeter(MeterParams meterParams, List<Object[]> res) {
+        return readMeter(meterParams, res::addAll);
+    }
+
+    /**
+     * Reads profile passing rows to the sink, when reading fails rows passed before the failure stay in the sink.
+     *
+     * @return false if reading failed.
+     */
+    public boolean readMeter(MeterParams meterParams, ReadingsSink sink) {
+        return readMeter(meterParams, sink, null);
+    }
+
+    /**
+     * Reads profile converting rows straight to column buffers of {@code res}, without boxed rows.
+     * When reading fails rows read before the failure are kept.
+     *
+     * @return false if reading failed.
+     */
+    public boolean readMeter(MeterParams meterParams, ColumnarReadings res) {
+        return readMeter(meterParams, null, res::append);
+    }
+
+    private boolean readMeter(MeterParams meterParams, ReadingsSink sink, ColumnarSink columnarSink) {
+        try {
+            readMeterOrFail(meterParams, ReadProgressListener.NONE, new BlockSink(meterParams, sink, columnarSink, true),
+                    DecodedBufferListener.NONE);
+            return true;
+        } catch (Exception e) {
+            log.info("problem with reading  meter {} : {} ", meterParams.getHostName(), meterParams.getPort());
+            log.info(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads profile from the meter, the same as {@link #readMeter(MeterParams)},
+     * but reading problems are passed to the caller instead of returning empty list.
+     */
+    public List<Object[]> readMeterOrFail(MeterParams meterParams) throws Exception {
+        return readMeterOrFail(meterParams, ReadProgressListener.NONE);
+    }
+
+    public List<Object[]> readMeterOrFail(MeterParams meterParams, ReadProgressListener listener) throws Exception {
+        List<Object[]> res = new ArrayList<>();
+        readMeterOrFail(meterParams, listener, res::addAll);
+        return res;
+    }
+
+    /**
+     * Reads profile from the meter passing converted rows to the sink block by block,
+     * so whole buffer of the profile is never kept in memory.
+     */
+    public void readMeterOrFail(MeterParams meterParams, ReadProgressListener listener, ReadingsSink sink) throws Exception {
+        readMeterOrFail(meterParams, listener, sink, DecodedBufferListener.NONE);
+    }
+
+    /**
+     * Reads profile passing also the header and rows decoded from the meter to {@code bufferListener}.
+     * Reading which fails after some rows were read is resumed after the last read row with new association.
+     *
+     * @throws pl.meters.gurux.fleet.GatewayUnavailableException if the gateway of the meter failed repeatedly.
+     * @throws ReadIncompleteException                          if reading failed after rows were passed to the sink.
+     */
+    public void readMeterOrFail(MeterParams meterParams, ReadProgressListener listener, ReadingsSink sink,
+                                DecodedBufferListener bufferListener) throws Exception {
+        readMeterOrFail(meterParams, listener, new BlockSink(meterParams, sink, null, true), bufferListener);
+    }
+
+    /**
+     * Reads the whole range for diagnostics passing decoded rows to {@code bufferListener}. Converted rows are
+     * not stored and high water mark of incremental reading is not moved, {@code meterParams} are not changed.
+     */
+    public void readMeterForDiagnostics(MeterParams meterParams, DecodedBufferListener bufferListener) throws Exception {
+        MeterParams params = meterParams.toBuilder().incremental(false).build();
+        readMeterOrFail(params, ReadProgressListener.NONE, new BlockSink(params, null, null, false), bufferListener);
+    }
+
+    private void readMeterOrFail(MeterParams meterParams, ReadProgressListener listener, BlockSink sink,
+                                 DecodedBufferListener bufferListener) throws Exception {
+        PooledAssociation association = null;
         LocalDateTime readingStart = LocalDateTime.now();
         String hostname = meterParams.getHostName();
         Short port = meterParams.getPort();
 
-        log.info("start reading profile on meter {} : {}, timeFrom = {}, timeTo {}"
-                , hostname, port, meterParams.getFrom(), meterParams.getTo());
+        GatewayKey gateway = GatewayKey.of(meterParams);
+        boolean trial = gatewayBreaker.acquire(gateway);
+        LocalDateTime[] resumeAfter = new LocalDateTime[1];
+        boolean turn = false;
         try {
-            reader = createReader(meterParams);
-            openConnection(reader, meterParams);
-            resList = readMeter(reader, meterParams);
-
-        } catch (Exception e) {
-            log.info("problem with reading  meter {} : {} ", hostname, port);
-            log.info(e.getMessage());
-        } finally {
-            logReadingTime(readingStart, hostname, port);
-            if (reader != null) {
+            if (gatewaySessions.isEnabled()) {
+                listener.onPhase(ReadPhase.QUEUED);
+                gatewaySessions.acquire(meterParams);
+                turn = true;
+            }
+            log.info("start reading profile on meter {} : {}, timeFrom = {}, timeTo {}"
+                    , hostname, port, meterParams.getFrom(), meterParams.getTo());
+            listener.onPhase(ReadPhase.CONNECTING);
+            association = borrow(meterParams, gateway);
+            int resumes = 0;
+            while (true) {
+                LocalDateTime attemptStart = resumeAfter[0];
                 try {
-                    closeConnection(reader, meterParams);
+                    readMeter(association.getReader(), meterParams, listener, sink, bufferListener, resumeAfter);
+                    break;
                 } catch (Exception e) {
-                    log.info("problem with closing connection meter {} : {} , meter may be blocked :(", hostname, port);
-                    log.error(e.getMessage(), e);
+                    boolean progressed = resumeAfter[0] != null && !resumeAfter[0].equals(attemptStart);
+                    if (association.isReused() && sink.getEmitted() == 0) {
+                        // Meter could drop the link while association was idle, try once again with new association.
+                        log.info("reused association to meter {} : {} failed, reconnecting: {}", hostname, port, e.getMessage());
+                    } else if (progressed && resumes < readChunks.getMaxResumes()) {
+                        resumes++;
+                        log.info("reading of meter {} : {} failed, resuming after {}: {}", hostname, port, resumeAfter[0], e.getMessage());
+                    } else {
+                        throw e;
+                    }
                 }
+                readerPool.invalidate(association);
+                association = null;
+                listener.onPhase(ReadPhase.CONNECTING);
+                association = borrow(meterParams, gateway);
+            }
+            if (gatewaySessions.isEnabled()) {
+                // Gateway serves one meter at a time, HDLC session is ended before the next meter gets the turn.
+                readerPool.invalidate(association);
+            } else {
+                readerPool.release(association);
+            }
+            association = null;
+        } catch (Exception e) {
+            if (resumeAfter[0] == null || sink.getEmitted() == 0) {
+                throw e;
+            }
+            throw new ReadIncompleteException(resumeAfter[0], e);
+        } finally {
+            logReadingTime(readingStart, hostname, port);
+            if (association != null) {
+                readerPool.invalidate(association);
+            }
+            if (turn) {
+                gatewaySessions.release(meterParams);
+            }
+            if (trial) {
+                gatewayBreaker.release(gateway);
             }
         }
-        return resList;
     }
 
-    private List<Object[]> readMeter(DLMSReader reader, MeterParams meterParams) throws Exception {
+    /**
+     * Borrows association of the meter, successful connection closes the gateway circuit,
+     * failures are passed to the circuit breaker by {@link #openReader(MeterParams)}.
+     */
+    private PooledAssociation borrow(MeterParams meterParams, GatewayKey gateway) throws Exception {
+        PooledAssociation association = readerPool.borrow(meterParams, this::openReader);
+        gatewayBreaker.success(gateway);
+        return association;
+    }
+
+    /**
+     * Reads rows after {@code resumeAfter} (when set, otherwise after high water mark in incremental mode),
+     * time of the last passed row is kept in {@code resumeAfter}.
+     */
+    private void readMeter(DLMSReader reader, MeterParams meterParams, ReadProgressListener listener,
+                           BlockSink sink, DecodedBufferListener bufferListener, LocalDateTime[] resumeAfter) throws Exception {
 
-        GXDateTime from = localDateTime2GXDateTime(meterParams.getFrom());
-        GXDateTime to = localDateTime2GXDateTime(meterParams.getTo());
+        LocalDateTime lastRead = resumeAfter[0] != null ? resumeAfter[0]
+                : isIncremental(meterParams) ? highWaterMarkStore.get(meterParams) : null;
+        LocalDateTime from = readFrom(meterParams, lastRead);
+        LocalDateTime to = (meterParams.getTo() != null) ? meterParams.getTo() : LocalDateTime.now();
 
         int snProfileGeneric = meterParams.getProfileToReadSn();
         String obisProfileGeneric = meterParams.getProfileToReadLn();
         GXDLMSProfileGeneric p = new GXDLMSProfileGeneric(obisProfileGeneric, snProfileGeneric);
-        List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj = readCaptureObject(p, reader, meterParams);
-        traceHeader(obj);
-        Object[] cells = reader.readRowsByRange(p, from, to);
-        traceCells(cells);
+        SessionMetrics metrics = dlmsMetrics.session(meterParams);
+        listener.onPhase(ReadPhase.CAPTURE_OBJECTS);
+        boolean cachedHeader = readCaptureObject(p, reader, meterParams, metrics);
+        IntervalReconstructor.Mode intervalMode = intervalMode(meterParams);
+        long capturePeriod = (intervalMode != null) ? readCapturePeriod(p, reader, meterParams) : 0;
+        RowSampler sampler = rowDiagnostics.sampler(meterParams);
+        rowDiagnostics.header(sampler, p.getCaptureObjects());
+        bufferListener.onHeader(p.getCaptureObjects());
+        RowsConsumer decoded = cells -> {
+            rowDiagnostics.rows(sampler, cells);
+            bufferListener.onRows(cells);
+        };
+        listener.onPhase(ReadPhase.BUFFER);
+        ConvertingConsumer rows = rowsConsumer(p, meterParams, from, lastRead, sink, decoded, resumeAfter, intervalMode, capturePeriod);
+        try {
+            readChunks(p, reader, meterParams, from, to, lastRead, rows, metrics);
+        } catch (Exception e) {
+            // Timeouts and dropped links say nothing about the header, only rows not matching it do.
+            if (!cachedHeader || rows.isStarted() || !(e instanceof BufferDecodeException)) {
+                throw e;
+            }
+            log.info("buffer of meter {} : {} does not match cached capture objects, reading them again: {}"
+                    , meterParams.getHostName(), meterParams.getPort(), e.getMessage());
+            captureObjectCache.invalidate(meterParams);
+            p = new GXDLMSProfileGeneric(obisProfileGeneric, snProfileGeneric);
+            readCaptureObject(p, reader, meterParams, metrics);
+            rowDiagnostics.header(sampler, p.getCaptureObjects());
+            bufferListener.onHeader(p.getCaptureObjects());
+            rows = rowsConsumer(p, meterParams, from, lastRead, sink, decoded, resumeAfter, intervalMode, capturePeriod);
+            readChunks(p, reader, meterParams, from, to, lastRead, rows, metrics);
+        }
+        metrics.rows(rows.getRowCount());
+        IntervalReconstructor intervals = rows.getIntervals();
+        if (intervals != null) {
+            metrics.intervals(intervals.getReconstructed(), intervals.getMissing(), intervals.getDuplicates(), intervals.getClockJumps());
+            log.info("intervals of meter {} : {}, reconstructed {}, gaps {} (missing {}), duplicates {}, clock jumps {}"
+                    , meterParams.getHostName(), meterParams.getPort(), intervals.getReconstructed(), intervals.getGaps()
+                    , intervals.getMissing(), intervals.getDuplicates(), intervals.getClockJumps());
+        }
+        listener.onPhase(ReadPhase.CONVERTING);
+    }
 
-        ReadingsConverter converter = (meterParams.getMeterProducer().equalsIgnoreCase("ITRON")) ? new ItronReadingConverter() : new MeterReadingConverter();
-        return converter.convert(cells, obj, meterParams);
+    /**
+     * Reads the range chunk by chunk ({@link ReadChunks}), in incremental mode high water mark is stored
+     * after every chunk. Converting time of rows is recorded separately from buffer reading time.
+     */
+    private void readChunks(GXDLMSProfileGeneric p, DLMSReader reader, MeterParams meterParams, LocalDateTime from,
+                            LocalDateTime to, LocalDateTime lastRead, ConvertingConsumer rows,
+                            SessionMetrics metrics) throws Exception {
+        long start = System.nanoTime();
+        try {
+            LocalDateTime chunkFrom = from;
+            while (true) {
+                LocalDateTime chunkTo = readChunks.end(chunkFrom, to);
+                boolean allRead = readBuffer(p, reader, chunkFrom, chunkTo, to, lastRead, rows);
+                if (isIncremental(meterParams) && rows.getLastTime() != null) {
+                    highWaterMarkStore.update(meterParams, rows.getLastTime());
+                }
+                if (allRead || !chunkTo.isBefore(to)) {
+                    return;
+                }
+                chunkFrom = chunkTo.plusMinutes(1);
+            }
+        } finally {
+            metrics.recordNanos(SessionPhase.BUFFER, System.nanoTime() - start - rows.getConvertNanos());
+            metrics.recordNanos(SessionPhase.CONVERT, rows.getConvertNanos());
+        }
+    }
+
+    private ConvertingConsumer rowsConsumer(GXDLMSProfileGeneric p, MeterParams meterParams, LocalDateTime from,
+                                            LocalDateTime lastRead,
+                                            BlockSink sink, RowsConsumer decoded, LocalDateTime[] resumeAfter,
+                                            IntervalReconstructor.Mode intervalMode, long capturePeriod) {
+        ReadingsConverter converter;
+        if (meterParams.getMeterProducer().equalsIgnoreCase("ITRON")) {
+            converter = (capturePeriod > 0) ? new ItronReadingConverter(capturePeriod) : new ItronReadingConverter();
+        } else {
+            converter = new MeterReadingConverter();
+        }
+        ProjectionPlan plan = captureObjectCache.plan(meterParams, p.getCaptureObjects(), converter);
+        boolean tracking = isIncremental(meterParams) || readChunks.isResumable();
+        IntervalReconstructor intervals = null;
+        if (intervalMode != null && capturePeriod > 0) {
+            intervals = new IntervalReconstructor(capturePeriod, intervalMode, DlmsDateTime.systemDefault());
+            intervals.startAt(from);
+        }
+        // Column buffers carry instants of rows, tracking and intervals compare them instead of local date-times.
+        boolean rows = sink.needsRows();
+        boolean columns = sink.needsColumns() || tracking || intervals != null;
+        return new ConvertingConsumer(p.getCaptureObjects().size(), rows ? converter.rowConverter(plan) : null,
+                columns ? converter.columnarConverter(plan) : null,
+                columns ? new ColumnarReadings(meterParams.getFieldsOfProfileLn(), 0) : null,
+                tracking, lastRead, sink, decoded, resumeAfter, intervals);
+    }
+
+    private static IntervalReconstructor.Mode intervalMode(MeterParams meterParams) {
+        return (meterParams.getIntervals() != null)
+                ? IntervalReconstructor.Mode.valueOf(meterParams.getIntervals().toUpperCase()) : null;
+    }
+
+    /**
+     * Capture period of the profile in seconds (attribute 4), 0 when rows are captured asynchronously.
+     */
+    private static long readCapturePeriod(GXDLMSProfileGeneric p, DLMSReader reader, MeterParams meterParams) throws Exception {
+        long capturePeriod = ((Number) reader.read(p, 4)).longValue();
+        if (capturePeriod <= 0) {
+            log.info("profile of meter {} : {} is captured asynchronously, intervals are not checked"
+                    , meterParams.getHostName(), meterParams.getPort());
+        }
+        return capturePeriod;
+    }
+
+    /**
+     * Sinks of one reading: converted rows and column buffers of every block, column buffers are passed
+     * to the reading store when {@code store} is set. Counts rows passed since the reading started.
+     */
+    private final class BlockSink {
+
+        private final MeterParams meterParams;
+        private final ReadingsSink rows;
+        private final ColumnarSink columns;
+        private final boolean store;
+        private long emitted;
+
+        BlockSink(MeterParams meterParams, ReadingsSink rows, ColumnarSink columns, boolean store) {
+            this.meterParams = meterParams;
+            this.rows = rows;
+            this.columns = columns;
+            this.store = store && readingStore.isEnabled();
+        }
+
+        boolean needsRows() {
+            return rows != null;
+        }
+
+        boolean needsColumns() {
+            return columns != null || store;
+        }
+
+        /**
+         * @param rows  converted rows, null when not needed.
+         * @param block column buffers of the rows, null when not needed.
+         * @param count number of rows read from the meter.
+         */
+        void accept(List<Object[]> rows, ColumnarReadings block, int count) throws Exception {
+            emitted += count;
+            if (store) {
+                readingStore.append(meterParams, block);
+            }
+            if (this.rows != null) {
+                this.rows.accept(rows);
+            }
+            if (columns != null) {
+                columns.accept(block);
+            }
+        }
+
+        long getEmitted() {
+            return emitted;
+        }
+    }
+
+    /**
+     * Converts rows of every block read from the meter to rows and/or column buffers (reused for every block)
+     * and passes them to the sink, decoded rows are passed to diagnostics first. When tracking (incremental or resumable reading) rows not newer than
+     * {@code lastRead} are skipped and time of the last row is remembered in {@code resumeAfter}, rows without
+     * clock are kept or skipped together with the row before. Times of the kept rows are then checked by
+     * {@code intervals} when given.
+     */
+    private static class ConvertingConsumer implements RowsConsumer {
+
+        private final int columns;
+        private final RowConverter rowConverter;
+        private final ColumnarConverter columnarConverter;
+        private final ColumnarReadings block;
+        private final boolean tracking;
+        private final DlmsDateTime dateTime = DlmsDateTime.systemDefault();
+        private final long lastRead;
+        private final BlockSink sink;
+        private final RowsConsumer decoded;
+        private final LocalDateTime[] resumeAfter;
+        private final IntervalReconstructor intervals;
+        private boolean started;
+        private boolean keep = true;
+        private long lastEpochSecond = ColumnarReadings.NO_TIME;
+        private LocalDateTime lastTime;
+        private long rowCount;
+        private long convertNanos;
+
+        /**
+         * @param rowConverter      null when rows are not needed.
+         * @param columnarConverter null when column buffers are not needed, required for tracking and intervals.
+         */
+        ConvertingConsumer(int columns, RowConverter rowConverter, ColumnarConverter columnarConverter,
+                           ColumnarReadings block, boolean tracking, LocalDateTime lastRead, BlockSink sink,
+                           RowsConsumer decoded, LocalDateTime[] resumeAfter, IntervalReconstructor intervals) {
+            this.columns = columns;
+            this.rowConverter = rowConverter;
+            this.columnarConverter = columnarConverter;
+            this.block = block;
+            this.tracking = tracking;
+            this.lastRead = lastRead != null
+                    ? dateTime.epochSecond(lastRead.toEpochSecond(ZoneOffset.UTC)) : ColumnarReadings.NO_TIME;
+            this.sink = sink;
+            this.decoded = decoded;
+            this.resumeAfter = resumeAfter;
+            this.intervals = intervals;
+        }
+
+        @Override
+        public void accept(Object[] cells) throws Exception {
+            if (cells.length == 0) {
+                return;
+            }
+            if (!started && ((Object[]) cells[0]).length != columns) {
+                throw new BufferDecodeException("row has " + ((Object[]) cells[0]).length + " columns, capture objects " + columns);
+            }
+            decoded.accept(cells);
+            long start = System.nanoTime();
+            List<Object[]> rows = (rowConverter != null) ? new ArrayList<>(cells.length) : null;
+            int count;
+            try {
+                count = convert(cells, rows);
+            } catch (RuntimeException e) {
+                if (started) {
+                    throw e;
+                }
+                throw new BufferDecodeException("cells of the first block cannot be converted", e);
+            }
+            started = true;
+            if (intervals != null) {
+                rows = intervals.apply(block, rows);
+            }
+            long blockLast = ColumnarReadings.NO_TIME;
+            if (tracking) {
+                // NO_TIME is the smallest value.
+                for (int row = 0; row < block.size(); row++) {
+                    blockLast = Math.max(blockLast, block.time(row));
+                }
+            }
+            convertNanos += System.nanoTime() - start;
+            rowCount += count;
+            if (blockLast != ColumnarReadings.NO_TIME
+                    && (lastEpochSecond == ColumnarReadings.NO_TIME || blockLast > lastEpochSecond)) {
+                lastEpochSecond = blockLast;
+                lastTime = LocalDateTime.ofEpochSecond(dateTime.localSecond(blockLast), 0, ZoneOffset.UTC);
+            }
+            if (count > 0) {
+                sink.accept(rows, block, count);
+                resumeAfter[0] = lastTime;
+            }
+        }
+
+        /**
+         * Converts rows of the block to {@code rows} (when not null) and to the block, skips rows read before.
+         *
+         * @return number of kept rows.
+         */
+        private int convert(Object[] cells, List<Object[]> rows) {
+            if (block != null) {
+                block.clear();
+            }
+            int count = 0;
+            for (Object cell : cells) {
+                Object[] row = (Object[]) cell;
+                // Converters keep time of the previous row, every row is converted even if it is skipped.
+                Object[] converted = (rowConverter != null) ? rowConverter.convert(row) : null;
+                if (block != null) {
+                    int index = block.size();
+                    columnarConverter.convert(row, block);
+                    long time = block.time(index);
+                    if (tracking && time != ColumnarReadings.NO_TIME) {
+                        keep = lastRead == ColumnarReadings.NO_TIME || time > lastRead;
+                    }
+                    if (!keep) {
+                        block.removeLast();
+                        continue;
+                    }
+                }
+                if (rows != null) {
+                    rows.add(converted);
+                }
+                count++;
+            }
+            return count;
+        }
+
+        IntervalReconstructor getIntervals() {
+            return intervals;
+        }
+
+        boolean isStarted() {
+            return started;
+        }
+
+        LocalDateTime getLastTime() {
+            return lastTime;
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Time spent converting rows, without passing them to the sink.
+         */
+        long getConvertNanos() {
+            return convertNanos;
+        }
+    }
+
+    private static boolean isIncremental(MeterParams meterParams) {
+        return Boolean.TRUE.equals(meterParams.getIncremental());
+    }
+
+    /**
+     * In incremental mode reading starts after last read row, rows are captured at full minutes.
+     */
+    private static LocalDateTime readFrom(MeterParams meterParams, LocalDateTime lastRead) {
+        if (lastRead == null) {
+            if (meterParams.getFrom() == null) {
+                throw new IllegalArgumentException("from is required when meter was not read before");
+            }
+            return meterParams.getFrom();
+        }
+        LocalDateTime afterLastRead = lastRead.plusMinutes(1);
+        return (meterParams.getFrom() != null && meterParams.getFrom().isAfter(afterLastRead)) ? meterParams.getFrom() : afterLastRead;
     }
 
     GXDateTime localDateTime2GXDateTime(LocalDateTime date) {
         return new GXDateTime(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), date.getHour(), date.getMinute(), 0, 0);
     }
 
-    private List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> readCaptureObject(GXDLMSProfileGeneric p, DLMSReader reader, MeterParams meterParams) throws Exception {
+    /**
+     * Sets capture objects of the profile, from the cache or read from the meter.
+     *
+     * @return true if capture objects were taken from the cache.
+     */
+    private boolean readCaptureObject(GXDLMSProfileGeneric p, DLMSReader reader, MeterParams meterParams,
+                                      SessionMetrics metrics) throws Exception {
         String hostname = meterParams.getHostName();
         Short port = meterParams.getPort();
         p.setSortObject(new GXDLMSClock(meterParams.getClockObis(), meterParams.getClockShortName()));
+        if (captureObjectCache.apply(meterParams, p)) {
+            log.info("captureObject of meter {} : {} taken from cache", hostname, port);
+            return true;
+        }
         //Before you can read the buffer you need to read the capture object. Read attribute index 3 and after that, you can read buffer. https://www.gurux.fi/node/13954
         log.info("reading captureObject on meter, {} : {}", hostname, port);
-        return (List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>>) reader.read(p, 3);
+        long start = System.nanoTime();
+        reader.read(p, 3);
+        metrics.record(SessionPhase.CAPTURE_OBJECTS, start);
+        captureObjectCache.put(meterParams, p);
+        return false;
     }
 
+    /**
+     * Reads rows by range. In incremental mode, when meter does not support range reading,
+     * rows captured after {@code lastRead} up to {@code to} are read by entry.
+     *
+     * @return true if rows up to {@code to} were read by entry.
+     */
+    private boolean readBuffer(GXDLMSProfileGeneric p, DLMSReader reader, LocalDateTime from, LocalDateTime chunkTo,
+                               LocalDateTime to, LocalDateTime lastRead, ConvertingConsumer rows) throws Exception {
+        try {
+            reader.readRowsByRange(p, localDateTime2GXDateTime(from), localDateTime2GXDateTime(chunkTo), rows);
+            return false;
+        } catch (GXDLMSException e) {
+            if (lastRead == null || rows.isStarted()) {
+                throw e;
+            }
+            log.info("meter does not support reading by range, reading new entries: {}", e.getMessage());
+            readNewEntries(p, reader, lastRead, to, rows);
+            return true;
+        }
+    }
+
+    /**
+     * Reads last entries of the profile, as many as could be captured since {@code lastRead}
+     * (entries in use - attribute 7, capture period - attribute 4).
+     */
+    private static void readNewEntries(GXDLMSProfileGeneric p, DLMSReader reader, LocalDateTime lastRead,
+                                       LocalDateTime to, RowsConsumer rows) throws Exception {
+        long entriesInUse = ((Number) reader.read(p, 7)).longValue();
+        long capturePeriod = ((Number) reader.read(p, 4)).longValue();
+        if (entriesInUse == 0) {
+            return;
+        }
+        long expected = (capturePeriod > 0) ? Duration.between(lastRead, to).getSeconds() / capturePeriod + 1 : entriesInUse;
+        long count = Math.max(1, Math.min(entriesInUse, expected));
+        reader.readRowsByEntry(p, (int) (entriesInUse - count + 1), (int) count, rows);
+    }
 
-    private DLMSReader createReader(MeterParams meterParams) {
+
+    private DLMSReader openReader(MeterParams meterParams) throws Exception {
+        GXDLMSSecureClient client = createClient(meterParams);
+        LinkProfile proposed = linkProfiles.profile(meterParams);
+        proposed.apply(client);
+        DLMSReader reader = createReader(client, meterParams);
+        try {
+            openConnection(reader, meterParams);
+        } catch (Exception e) {
+            if (reader.isConnected()) {
+                // TCP connection is open, meter did not accept SNRM or AARQ, gateway is not to blame.
+                linkProfiles.failed(meterParams, proposed);
+                dlmsMetrics.session(meterParams).associationFailed();
+            } else {
+                gatewayBreaker.failure(GatewayKey.of(meterParams));
+            }
+            try {
+                reader.closeConnection();
+            } catch (Exception closeException) {
+                log.info("problem with closing connection meter {} : {} , meter may be blocked :(", meterParams.getHostName(), meterParams.getPort());
+            }
+            throw e;
+        }
+        linkProfiles.connected(meterParams, proposed, LinkProfile.of(client));
+        return reader;
+    }
+
+    private static GXDLMSSecureClient createClient(MeterParams meterParams) {
         GXDLMSSecureClient client = new GXDLMSSecureClient(meterParams.getUseLogicalNameReferencing());
         Authentication auth = Authentication.valueOf(meterParams.getAuthenticationStr());
         client.setAuthentication(auth);
         client.setClientAddress(meterParams.getClientAddress());
-        client.setInterfaceType(InterfaceType.HDLC);
+        client.setInterfaceType(meterParams.getInterfaceTypeStr() != null
+                ? InterfaceType.valueOf(meterParams.getInterfaceTypeStr()) : InterfaceType.HDLC);
         client.setServerAddress(GXDLMSClient.getServerAddress(meterParams.getLogicalAddress(), meterParams.getPhysicalAddress()));
-        GXNet media = new GXNet();
-        media.setHostName(meterParams.getHostName());
-        media.setPort(meterParams.getPort());
-        media.setTrace(TraceLevel.INFO);
-        media.setProtocol(NetworkType.TCP);
-        return new DLMSReaderImpl(client, media, TraceLevel.INFO, false);
+        return client;
+    }
+
+    private DLMSReader createReader(GXDLMSSecureClient client, MeterParams meterParams) {
+        DlmsTransport transport = gatewaySessions.isEnabled()
+                ? gatewaySessions.transport(meterParams, client.getInterfaceType())
+                : transportFactory.create(meterParams, client.getInterfaceType());
+        return new DLMSReaderImpl(client, transport, TraceLevel.INFO, false, traceSink.session(meterParams.meterIdentity()),
+                dlmsMetrics.session(meterParams), retryPolicy.session(meterParams));
     }
 
 
@@ -116,46 +704,12 @@ public class MeterService {
         reader.initializeConnection();
         LocalDateTime initConnectionStop = LocalDateTime.now();
         Duration durationInit = Duration.between(initConnectionStart, initConnectionStop);
-        log.info("open connection time for meter  {} : {}  in sec: {}", meterParams.getHostName(), meterParams.getPort(), durationInit.getSeconds());
-    }
-
-    private void closeConnection(DLMSReader reader, MeterParams meterParams) throws Exception {
-        log.info("close connection on meter on {} : {} ", meterParams.getHostName(), meterParams.getPort());
-        reader.closeConnection();
-        log.info("connection successfully closed on meter {} : {} ", meterParams.getHostName(), meterParams.getPort());
+        log.info("open connection time for meter  {} : {}  in ms: {}", meterParams.getHostName(), meterParams.getPort(), durationInit.toMillis());
     }
 
     private static void logReadingTime(LocalDateTime profileGenericStart, String hostname, int port) {
         LocalDateTime profileGenericStop = LocalDateTime.now();
         Duration profileGenericReading = Duration.between(profileGenericStart, profileGenericStop);
-        log.info("time reading profile for meter {} : {}  in sec: {}", hostname, port, profileGenericReading.getSeconds());
+        log.info("time reading profile for meter {} : {}  in ms: {}", hostname, port, profileGenericReading.toMillis());
     }
-
-    private static void traceHeader(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj) {
-        int i = 1;
-        StringBuilder sb = new StringBuilder();
-        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> row : obj) {
-            sb.append(String.format("%-25s", i + ": " + row.getKey().getLogicalName()));
-            i++;
-        }
-        log.info("Headers of profile: {}", sb.toString());
-    }
-
-
-    static void traceCells(Object[] cells) {
-        StringBuilder sb = new StringBuilder();
-        int rowNb = 1;
-        for (Object rows : cells) {
-            sb.setLength(0);
-            int i = 1;
-            for (Object cell : (Object[]) rows) {
-                String pattern = (i < 3) ? "%-25s" : "%-15s";
-                sb.append(String.format(pattern, i + ": " + cell));
-                i++;
-            }
-            log.info("row number: {} = {}", rowNb++, sb.toString());
-        }
-        log.info("===========================================");
-    }
-
 }
@@ -0,0 +1,20 @@
+package pl.meters.gurux;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reading failed after some rows were passed to the sink. Rows up to {@code readTo} are complete,
+ * next reading can start after it.
+ */
+@Getter
+public class ReadIncompleteException extends Exception {
+
+    private final LocalDateTime readTo;
+
+    public ReadIncompleteException(LocalDateTime readTo, Throwable cause) {
+        super("reading incomplete, rows read to " + readTo + ": " + cause.getMessage(), cause);
+        this.readTo = readTo;
+    }
+}
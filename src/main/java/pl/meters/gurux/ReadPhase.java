@@ -0,0 +1,14 @@
+package pl.meters.gurux;
+
+/**
+ * Phases of reading profile from the meter.
+ */
+public enum ReadPhase {
+    QUEUED,
+    CONNECTING,
+    CAPTURE_OBJECTS,
+    BUFFER,
+    CONVERTING,
+    DONE,
+    FAILED
+}
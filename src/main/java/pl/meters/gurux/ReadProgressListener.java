@@ -0,0 +1,13 @@
+package pl.meters.gurux;
+
+/**
+ * Notified by {@link MeterService} when reading of the meter enters next phase.
+ */
+@FunctionalInterface
+public interface ReadProgressListener {
+
+    ReadProgressListener NONE = phase -> {
+    };
+
+    void onPhase(ReadPhase phase);
+}
@@ -0,0 +1,12 @@
+package pl.meters.gurux;
+
+import java.util.List;
+
+/**
+ * Receives converted rows from {@link MeterService} as soon as each block of the buffer is read.
+ */
+@FunctionalInterface
+public interface ReadingsSink {
+
+    void accept(List<Object[]> rows) throws Exception;
+}
@@ -0,0 +1,17 @@
+package pl.meters.gurux.converters;
+
+/**
+ * Decodes value of one cell of the profile buffer.
+ */
+@FunctionalInterface
+public interface ColumnDecoder {
+
+    Object decode(Object cell);
+
+    /**
+     * Decodes numeric cell to primitive, used when rows are converted to column buffers.
+     */
+    default double decodeDouble(Object cell) {
+        return ValueDecoder.toDouble(cell);
+    }
+}
@@ -0,0 +1,9 @@
+package pl.meters.gurux.converters;
+
+/**
+ * Converts rows of one reading to column buffers, rows must be passed in the order they were read from the meter.
+ */
+public interface ColumnarConverter {
+
+    void convert(Object[] row, ColumnarReadings readings);
+}
@@ -0,0 +1,96 @@
+package pl.meters.gurux.converters;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary columnar form of readings, served instead of JSON when requested by {@code Accept} header. Big-endian,
+ * every part prefixed with its length:
+ * <pre>
+ * int magic "MRD1", int field count, per field: unsigned short name length, UTF-8 name (OBIS),
+ * int row count, row count * long time (epoch seconds), per field: row count * double value (NaN - no value)
+ * </pre>
+ */
+public final class ColumnarFormat {
+
+    public static final String MEDIA_TYPE = "application/vnd.meter-readings";
+
+    private static final int MAGIC = 0x4d524431;
+    private static final MediaType BINARY = MediaType.parseMediaType(MEDIA_TYPE);
+
+    private ColumnarFormat() {
+    }
+
+    /**
+     * @return true if this format is preferred to JSON by {@code accept} header: the most specific media type
+     * with the highest quality which matches one of them names this format and its quality is not 0.
+     * Wildcards and invalid header select JSON.
+     */
+    public static boolean accepts(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.includes(BINARY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encoded readings, body of the response.
+     */
+    public static byte[] toBytes(ColumnarReadings readings) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + readings.size() * 8 * (readings.columns() + 1));
+        try {
+            write(readings, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static void write(ColumnarReadings readings, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(readings.columns());
+        for (int column = 0; column < readings.columns(); column++) {
+            byte[] name = readings.name(column).getBytes(StandardCharsets.UTF_8);
+            data.writeShort(name.length);
+            data.write(name);
+        }
+        int size = readings.size();
+        data.writeInt(size);
+        for (int row = 0; row < size; row++) {
+            data.writeLong(readings.time(row));
+        }
+        for (int column = 0; column < readings.columns(); column++) {
+            for (int row = 0; row < size; row++) {
+                data.writeDouble(readings.value(column, row));
+            }
+        }
+        data.flush();
+    }
+}
@@ -0,0 +1,105 @@
+package pl.meters.gurux.converters;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Readings kept in primitive column buffers: time of the row as epoch seconds and one {@code double[]}
+ * per field of the profile. Buffers grow when rows are appended.
+ */
+public final class ColumnarReadings {
+
+    /**
+     * Time of the row which has no valid clock value.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private final String[] names;
+    private long[] times;
+    private final double[][] values;
+    private int size;
+
+    public ColumnarReadings(List<String> names, int capacity) {
+        this.names = names.toArray(new String[0]);
+        int initial = Math.max(capacity, 16);
+        this.times = new long[initial];
+        this.values = new double[this.names.length][initial];
+    }
+
+    /**
+     * Appends row with given time, values of the row must be set with {@link #set(int, int, double)}.
+     *
+     * @return index of the appended row.
+     */
+    public int appendRow(long epochSecond) {
+        if (size == times.length) {
+            grow(size + 1);
+        }
+        times[size] = epochSecond;
+        return size++;
+    }
+
+    /**
+     * Appends all rows of {@code other}, which must have the same columns.
+     */
+    public void append(ColumnarReadings other) {
+        if (size + other.size > times.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.times, 0, times, size, other.size);
+        for (int i = 0; i < values.length; i++) {
+            System.arraycopy(other.values[i], 0, values[i], size, other.size);
+        }
+        size += other.size;
+    }
+
+    /**
+     * Removes the last appended row, e.g. row which was already read before.
+     */
+    public void removeLast() {
+        size--;
+    }
+
+    public void set(int column, int row, double value) {
+        values[column][row] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columns() {
+        return names.length;
+    }
+
+    public String name(int column) {
+        return names[column];
+    }
+
+    public long time(int row) {
+        return times[row];
+    }
+
+    public void setTime(int row, long epochSecond) {
+        times[row] = epochSecond;
+    }
+
+    public double value(int column, int row) {
+        return values[column][row];
+    }
+
+    /**
+     * Removes rows, buffers are kept to be filled again.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(times.length * 2, minCapacity);
+        times = Arrays.copyOf(times, capacity);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Arrays.copyOf(values[i], capacity);
+        }
+    }
+}
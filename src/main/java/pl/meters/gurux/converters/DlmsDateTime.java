@@ -0,0 +1,254 @@
+package pl.meters.gurux.converters;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Decodes DLMS date-time octet strings and converts times without {@code Calendar}, {@code TimeZone} or formatter
+ * per row. Offset of the zone is cached for the period between two transitions (DST changes), so it is looked up
+ * in zone rules only when time crosses a transition. Times are passed as epoch seconds (instant) or local seconds
+ * (local date-time of the zone counted as if it was UTC). Thread safe, the cached period is immutable.
+ */
+public final class DlmsDateTime {
+
+    /**
+     * DLMS date-time octet string: year (2), month, day, day of week, hour, minute, second, hundredths,
+     * deviation (2), clock status.
+     */
+    private static final int LENGTH = 12;
+    private static final int NOT_SPECIFIED = 0xFF;
+    private static final int DEVIATION_NOT_SPECIFIED = 0x8000;
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final long MARGIN = 3 * 3600;
+
+    private static volatile DlmsDateTime systemDefault;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private volatile Period period = new Period(Long.MAX_VALUE, Long.MIN_VALUE, 0);
+
+    public DlmsDateTime(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+    }
+
+    /**
+     * Instance for the default zone of the JVM, created again only when the default zone changes.
+     */
+    public static DlmsDateTime systemDefault() {
+        ZoneId zone = ZoneId.systemDefault();
+        DlmsDateTime res = systemDefault;
+        if (res == null || !res.zone.equals(zone)) {
+            res = new DlmsDateTime(zone);
+            systemDefault = res;
+        }
+        return res;
+    }
+
+    /**
+     * Local seconds of the date-time octet string in the zone. Time with deviation is converted from the meter's
+     * offset (UTC = local time + deviation minutes), time without deviation is local time already. When date is
+     * not specified it is taken from {@code defaultEpochDay}, when hour or minute is not specified time is midnight,
+     * not specified second and hundredths are 0.
+     *
+     * @return {@link ColumnarReadings#NO_TIME} if the value is not a date-time or has no date and
+     * {@code defaultEpochDay} is {@code Long.MIN_VALUE}, also for special values (DST begin/end, last day of month).
+     */
+    public long localSecond(byte[] value, long defaultEpochDay) {
+        long meterSecond = meterSecond(value, defaultEpochDay);
+        if (meterSecond == ColumnarReadings.NO_TIME) {
+            return ColumnarReadings.NO_TIME;
+        }
+        int deviation = deviation(value);
+        return (deviation == DEVIATION_NOT_SPECIFIED) ? meterSecond : localSecond(meterSecond + (short) deviation * 60L);
+    }
+
+    /**
+     * Instant of the date-time octet string. Time with deviation is exact also in the hour repeated at the end
+     * of DST, time without deviation is local time of the zone, see {@link #epochSecond(long)}.
+     *
+     * @return {@link ColumnarReadings#NO_TIME} in the same cases as {@link #localSecond(byte[], long)}.
+     */
+    public long epochSecond(byte[] value, long defaultEpochDay) {
+        long meterSecond = meterSecond(value, defaultEpochDay);
+        if (meterSecond == ColumnarReadings.NO_TIME) {
+            return ColumnarReadings.NO_TIME;
+        }
+        int deviation = deviation(value);
+        return (deviation == DEVIATION_NOT_SPECIFIED) ? epochSecond(meterSecond) : meterSecond + (short) deviation * 60L;
+    }
+
+    /**
+     * Date and time fields of the octet string as seconds, in the time of the meter.
+     */
+    private static long meterSecond(byte[] value, long defaultEpochDay) {
+        if (value == null || value.length < LENGTH) {
+            return ColumnarReadings.NO_TIME;
+        }
+        int year = ((value[0] & 0xFF) << 8) | (value[1] & 0xFF);
+        int month = value[2] & 0xFF;
+        int day = value[3] & 0xFF;
+        int hour = value[5] & 0xFF;
+        int minute = value[6] & 0xFF;
+        int second = value[7] & 0xFF;
+        long epochDay;
+        if (year == 0xFFFF || month == NOT_SPECIFIED || day == NOT_SPECIFIED) {
+            if (defaultEpochDay == Long.MIN_VALUE) {
+                return ColumnarReadings.NO_TIME;
+            }
+            epochDay = defaultEpochDay;
+        } else if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return ColumnarReadings.NO_TIME;
+        } else {
+            epochDay = epochDay(year, month, day);
+        }
+        long secondOfDay = 0;
+        if (hour != NOT_SPECIFIED && minute != NOT_SPECIFIED) {
+            if (hour > 23 || minute > 59) {
+                return ColumnarReadings.NO_TIME;
+            }
+            secondOfDay = hour * 3600L + minute * 60L + (second != NOT_SPECIFIED && second < 60 ? second : 0);
+        }
+        return epochDay * SECONDS_PER_DAY + secondOfDay;
+    }
+
+    private static int deviation(byte[] value) {
+        return ((value[9] & 0xFF) << 8) | (value[10] & 0xFF);
+    }
+
+    /**
+     * Local seconds of the instant.
+     */
+    public long localSecond(long epochSecond) {
+        return epochSecond + period(epochSecond).offset;
+    }
+
+    /**
+     * Instant of the local time. Local time in the gap of DST change is moved forward, in the overlap
+     * the earlier offset is used, the same as {@link LocalDateTime#atZone(ZoneId)}.
+     */
+    public long epochSecond(long localSecond) {
+        Period cached = period(localSecond - period.offset);
+        long epochSecond = localSecond - cached.offset;
+        // Offsets change by hours at most, far from transitions the local time has exactly one instant.
+        if (cached.contains(epochSecond - MARGIN) && cached.contains(epochSecond + MARGIN)) {
+            return epochSecond;
+        }
+        return LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC).atZone(zone).toEpochSecond();
+    }
+
+    /**
+     * Local seconds as ISO local date-time ({@code yyyy-MM-ddTHH:mm:ss}), the same as
+     * {@code DateTimeFormatter.ISO_LOCAL_DATE_TIME} for whole seconds of years 0 - 9999.
+     */
+    public static String format(long localSecond) {
+        long epochDay = Math.floorDiv(localSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(localSecond, SECONDS_PER_DAY);
+        // Civil date from days, H. Hinnant's algorithm.
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        if (year < 0 || year > 9999) {
+            return LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC).toString();
+        }
+        char[] res = new char[19];
+        digits(res, 0, year, 4);
+        res[4] = '-';
+        digits(res, 5, month, 2);
+        res[7] = '-';
+        digits(res, 8, day, 2);
+        res[10] = 'T';
+        digits(res, 11, secondOfDay / 3600, 2);
+        res[13] = ':';
+        digits(res, 14, secondOfDay / 60 % 60, 2);
+        res[16] = ':';
+        digits(res, 17, secondOfDay % 60, 2);
+        return new String(res);
+    }
+
+    /**
+     * Local seconds of ISO local date-time written by {@link #format(long)}, other forms are parsed
+     * by {@link LocalDateTime#parse(CharSequence)}.
+     */
+    public static long parse(String iso) {
+        if (iso.length() != 19 || iso.charAt(4) != '-' || iso.charAt(10) != 'T' || iso.charAt(13) != ':') {
+            return LocalDateTime.parse(iso).toEpochSecond(ZoneOffset.UTC);
+        }
+        return epochDay(number(iso, 0, 4), number(iso, 5, 2), number(iso, 8, 2)) * SECONDS_PER_DAY
+                + number(iso, 11, 2) * 3600L + number(iso, 14, 2) * 60L + number(iso, 17, 2);
+    }
+
+    /**
+     * Days since 1970-01-01 of the civil date, H. Hinnant's algorithm.
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static void digits(char[] target, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int number(String source, int offset, int length) {
+        int res = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = source.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("not ISO local date-time: " + source);
+            }
+            res = res * 10 + digit;
+        }
+        return res;
+    }
+
+    private Period period(long epochSecond) {
+        Period cached = period;
+        if (cached.contains(epochSecond)) {
+            return cached;
+        }
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        Period res = new Period(previous != null ? previous.toEpochSecond() : Long.MIN_VALUE,
+                next != null ? next.toEpochSecond() : Long.MAX_VALUE, rules.getOffset(instant).getTotalSeconds());
+        period = res;
+        return res;
+    }
+
+    /**
+     * Instants {@code [from, to)} with the same offset.
+     */
+    private static final class Period {
+        private final long from;
+        private final long to;
+        private final int offset;
+
+        Period(long from, long to, int offset) {
+            this.from = from;
+            this.to = to;
+            this.offset = offset;
+        }
+
+        boolean contains(long epochSecond) {
+            return epochSecond >= from && epochSecond < to;
+        }
+    }
+}
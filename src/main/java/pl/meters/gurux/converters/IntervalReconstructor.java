@@ -0,0 +1,235 @@
+package pl.meters.gurux.converters;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks times of rows of one reading against capture period of the profile (attribute 4). Row without time
+ * (clock not sent) gets time of the previous row + capture period, the same as the meter omits the clock of rows
+ * captured in regular intervals. Every row gets flags: {@link #RECONSTRUCTED}, {@link #GAP} (intervals missing
+ * before the row), {@link #DUPLICATE} (the same time as the previous row) and {@link #CLOCK_JUMP} (time before
+ * the previous row or not a whole number of periods after it). Rows are checked by their instants (column buffers),
+ * so the hour repeated when DST ends is not taken for a clock jump. Blocks must be passed in the order they were
+ * read, state is kept between them. Not thread safe, one instance per reading.
+ */
+public final class IntervalReconstructor {
+
+    public static final int RECONSTRUCTED = 1;
+    public static final int GAP = 2;
+    public static final int DUPLICATE = 4;
+    public static final int CLOCK_JUMP = 8;
+    /**
+     * Empty row inserted for missing interval.
+     */
+    public static final int FILLED = 16;
+
+    /**
+     * Gaps longer than this are only marked, e.g. when the clock of the meter was set years ahead.
+     */
+    static final long MAX_FILL = 100_000;
+
+    private static final long SECONDS_PER_DAY = 86400;
+
+    public enum Mode {
+        /**
+         * Rows get flags column.
+         */
+        MARK,
+        /**
+         * Rows get flags column, missing intervals are inserted as rows without values, duplicates are dropped.
+         */
+        FILL
+    }
+
+    private final long period;
+    private final Mode mode;
+    private final DlmsDateTime dateTime;
+    /**
+     * Profiles captured once per day or less often follow local midnight, shorter periods follow instants,
+     * so DST changes make neither gaps nor duplicates.
+     */
+    private final boolean localTime;
+    private long previous = ColumnarReadings.NO_TIME;
+    private long[] times = new long[0];
+    private int[] flags = new int[0];
+    private long reconstructed;
+    private long gaps;
+    private long missing;
+    private long duplicates;
+    private long clockJumps;
+
+    /**
+     * @param period capture period in seconds, must be positive.
+     */
+    public IntervalReconstructor(long period, Mode mode, DlmsDateTime dateTime) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("capture period must be positive: " + period);
+        }
+        this.period = period;
+        this.mode = mode;
+        this.dateTime = dateTime;
+        this.localTime = period % SECONDS_PER_DAY == 0;
+    }
+
+    /**
+     * Rows are read from {@code from} (local date-time), the first one is expected at the first period boundary
+     * not before it, so intervals missing at the start of the range are gaps too.
+     */
+    public void startAt(LocalDateTime from) {
+        long local = from.toEpochSecond(ZoneOffset.UTC);
+        long first = local + Math.floorMod(-local, period);
+        previous = (localTime ? first : dateTime.epochSecond(first)) - period;
+    }
+
+    /**
+     * Rebuilds times of rows {@code [0, size)} in one pass. Rows before the first row with time in the first
+     * block get times counted back from it.
+     *
+     * @param times {@link ColumnarReadings#NO_TIME} for rows without time, replaced by reconstructed times.
+     * @param flags set for every row.
+     * @return number of intervals missing before rows of the block.
+     */
+    public long reconstruct(long[] times, int[] flags, int size) {
+        long before = missing;
+        int start = 0;
+        if (previous == ColumnarReadings.NO_TIME) {
+            while (start < size && times[start] == ColumnarReadings.NO_TIME) {
+                start++;
+            }
+            if (start == size) {
+                Arrays.fill(flags, 0, size, 0);
+                return 0;
+            }
+            for (int i = 0; i < start; i++) {
+                times[i] = times[start] - (start - i) * period;
+                flags[i] = RECONSTRUCTED;
+            }
+            reconstructed += start;
+            flags[start] = 0;
+            previous = times[start];
+            start++;
+        }
+        long last = previous;
+        for (int i = start; i < size; i++) {
+            long time = times[i];
+            int flag = 0;
+            if (time == ColumnarReadings.NO_TIME) {
+                time = last + period;
+                times[i] = time;
+                flag = RECONSTRUCTED;
+                reconstructed++;
+            } else {
+                long delta = time - last;
+                if (delta == 0) {
+                    flag = DUPLICATE;
+                    duplicates++;
+                } else if (delta < 0 || delta % period != 0) {
+                    flag = CLOCK_JUMP;
+                    clockJumps++;
+                }
+                if (delta > period) {
+                    flag |= GAP;
+                    gaps++;
+                    missing += (delta - 1) / period;
+                }
+            }
+            flags[i] = flag;
+            last = time;
+        }
+        previous = last;
+        return missing - before;
+    }
+
+    /**
+     * Reconstructs times of the block in place. Converted rows of the block (local date-time, values, one per row
+     * of the block) are returned with reconstructed times and flags added as the last column, in {@link Mode#FILL}
+     * missing intervals are inserted and duplicates dropped. Rows of the block are not inserted or dropped.
+     *
+     * @param rows null when only the block is needed.
+     * @return null if {@code rows} are null.
+     */
+    public List<Object[]> apply(ColumnarReadings block, List<Object[]> rows) {
+        int size = block.size();
+        if (times.length < size) {
+            times = new long[size];
+            flags = new int[size];
+        }
+        long last = previous;
+        for (int i = 0; i < size; i++) {
+            long time = block.time(i);
+            times[i] = (time == ColumnarReadings.NO_TIME) ? time : toTime(time);
+        }
+        long inserted = reconstruct(times, flags, size);
+        for (int i = 0; i < size; i++) {
+            if ((flags[i] & RECONSTRUCTED) != 0) {
+                block.setTime(i, toEpochSecond(times[i]));
+            }
+        }
+        if (rows == null) {
+            return null;
+        }
+        boolean fill = mode == Mode.FILL;
+        List<Object[]> res = new ArrayList<>(fill ? (int) Math.min(size + inserted, size + MAX_FILL) : size);
+        for (int i = 0; i < size; i++) {
+            Object[] row = rows.get(i);
+            int flag = flags[i];
+            if (fill && (flag & DUPLICATE) != 0) {
+                continue;
+            }
+            if (fill && (flag & GAP) != 0 && (times[i] - last - 1) / period <= MAX_FILL) {
+                for (long time = last + period; time < times[i]; time += period) {
+                    Object[] empty = new Object[row.length + 1];
+                    empty[0] = format(time);
+                    empty[row.length] = FILLED;
+                    res.add(empty);
+                }
+            }
+            Object[] marked = Arrays.copyOf(row, row.length + 1);
+            if ((flag & RECONSTRUCTED) != 0) {
+                marked[0] = format(times[i]);
+            }
+            marked[row.length] = flag;
+            res.add(marked);
+            last = times[i];
+        }
+        return res;
+    }
+
+    public long getReconstructed() {
+        return reconstructed;
+    }
+
+    public long getGaps() {
+        return gaps;
+    }
+
+    /**
+     * Intervals missing in all gaps.
+     */
+    public long getMissing() {
+        return missing;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getClockJumps() {
+        return clockJumps;
+    }
+
+    private long toTime(long epochSecond) {
+        return localTime ? dateTime.localSecond(epochSecond) : epochSecond;
+    }
+
+    private long toEpochSecond(long time) {
+        return localTime ? dateTime.epochSecond(time) : time;
+    }
+
+    private String format(long time) {
+        return DlmsDateTime.format(localTime ? time : dateTime.localSecond(time));
+    }
+}
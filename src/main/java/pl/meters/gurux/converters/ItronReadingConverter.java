@@ -1,6 +1,5 @@
 package pl.meters.gurux.converters;
 
-import gurux.common.GXCommon;
 import gurux.dlms.GXDLMSClient;
 import gurux.dlms.GXDateTime;
 import gurux.dlms.GXStructure;
@@ -14,37 +13,102 @@ import pl.meters.gurux.dto.MeterParams;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
 import java.util.*;
 
 @Slf4j
 public class ItronReadingConverter implements ReadingsConverter {
 
+    private final DlmsDateTime dateTime = DlmsDateTime.systemDefault();
+    private final long capturePeriod;
 
-    public List<Object[]> convert(Object[] cells, List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams) {
-        List<Object[]> res = new ArrayList<>();
-        LocalDateTime time = null;
-        for (Object rows : cells) {
-            Object[] resultRow = new Object[meterParams.getFieldsOfProfileLn().size() + 1];
-            Object[] rowsTab = (Object[]) rows;
-            boolean isReadingWithError = checkIfReadingWithError(rowsTab);
-            time = getTime(rowsTab, isReadingWithError, time);
-            if (isReadingWithError) {
-                log.info("There is an error: {}" + time);
+    public ItronReadingConverter() {
+        this(15 * 60);
+    }
+
+    /**
+     * @param capturePeriod capture period of the profile in seconds (attribute 4), rows without clock follow it.
+     */
+    public ItronReadingConverter(long capturePeriod) {
+        this.capturePeriod = capturePeriod;
+    }
+
+    public ProjectionPlan compile(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams) {
+        List<String> fields = meterParams.getFieldsOfProfileLn();
+        int[] columns = new int[fields.size()];
+        ColumnDecoder[] decoders = new ColumnDecoder[fields.size()];
+        int i = 0;
+        for (String obisOfField : fields) {
+            columns[i] = getColumnNumber(obj, obisOfField);
+            decoders[i] = ValueDecoder.INSTANCE;
+            i++;
+        }
+        return new ProjectionPlan(obj, columns, decoders);
+    }
+
+    public RowConverter rowConverter(ProjectionPlan plan) {
+        return new RowConverter() {
+            private LocalDateTime time = null;
+
+            @Override
+            public Object[] convert(Object[] rowsTab) {
+                Object[] resultRow = new Object[plan.size() + 1];
+                boolean isReadingWithError = checkIfReadingWithError(rowsTab);
+                time = getTime(rowsTab, isReadingWithError, time);
+                if (isReadingWithError) {
+                    log.info("There is an error: {}" + time);
+                }
+                resultRow[0] = DlmsDateTime.format(time.toEpochSecond(ZoneOffset.UTC));
+                plan.project(rowsTab, resultRow, 1);
+                return resultRow;
             }
-            resultRow[0] = time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-            int i = 1;
-            for (String obisOfField : meterParams.getFieldsOfProfileLn()) {
-                int colNb = getColumnNumber(obj, obisOfField);
-                Object readingsObjFromMeter = rowsTab[colNb];
-                Double valueFromMeter = Double.valueOf(getValueAsString(readingsObjFromMeter));
-                resultRow[i] = valueFromMeter;
-                i++;
+        };
+    }
+
+    public ColumnarConverter columnarConverter(ProjectionPlan plan) {
+        return new ColumnarConverter() {
+            private LocalDateTime time = null;
+            private long epochSecond;
+
+            @Override
+            public void convert(Object[] rowsTab, ColumnarReadings readings) {
+                boolean isReadingWithError = checkIfReadingWithError(rowsTab);
+                LocalDateTime prevTime = time;
+                time = getTime(rowsTab, isReadingWithError, prevTime);
+                epochSecond = getEpochSecond(rowsTab, isReadingWithError, prevTime, epochSecond, time);
+                if (isReadingWithError) {
+                    // Rows converted together with columns log the error already.
+                    log.debug("There is an error: {}", time);
+                }
+                int row = readings.appendRow(epochSecond);
+                plan.projectValues(rowsTab, 0, readings, row);
             }
-            res.add(resultRow);
+        };
+    }
 
+    /**
+     * Instant of the row with local {@code time}: from deviation of the clock when the row has it, otherwise
+     * the previous instant moved by the same local interval, so rows of the hour repeated at the end of DST
+     * keep their instants.
+     */
+    long getEpochSecond(Object[] rowsTab, boolean isReadingWithError, LocalDateTime prevTime, long prevEpochSecond,
+                        LocalDateTime time) {
+        Object clock = readObjectAtPos(rowsTab, 0);
+        if (isReadingWithError && clock == null) {
+            clock = readObjectAtPos(rowsTab, 1);
+        }
+        long local = time.toEpochSecond(ZoneOffset.UTC);
+        if (clock instanceof GXStructure && ((GXStructure) clock).get(0) instanceof byte[]) {
+            long epochSecond = dateTime.epochSecond((byte[]) ((GXStructure) clock).get(0),
+                    (prevTime != null) ? prevTime.toLocalDate().toEpochDay() : Long.MIN_VALUE);
+            if (epochSecond != ColumnarReadings.NO_TIME) {
+                return epochSecond;
+            }
+        }
+        if (clock == null && prevTime != null) {
+            return prevEpochSecond + local - prevTime.toEpochSecond(ZoneOffset.UTC);
         }
-        return res;
+        return dateTime.epochSecond(local);
     }
 
     boolean checkIfReadingWithError(Object[] rowsTab) {
@@ -66,45 +130,40 @@ public class ItronReadingConverter implements ReadingsConverter {
     }
 
 
-    String getValueAsString(Object obj) {
-        String result = "";
-        if (obj instanceof byte[]) {
-            result = GXCommon.bytesToHex((byte[]) obj);
-        } else if (obj instanceof GXStructure) {
-            GXStructure objStruct = (GXStructure) obj;
-            Object date = GXDLMSClient.changeType((byte[]) objStruct.get(0), DataType.DATETIME);
-            result = date.toString();
-        } else {
-            result = String.valueOf(obj);
-        }
-        return result;
-    }
-
     LocalDateTime getTime(Object[] rowsTab, boolean isReadingWithError, LocalDateTime prevReadingsTime) {
         LocalDateTime result = null;
         Object timeInFirstColumn = readObjectAtPos(rowsTab, 0);
         Object timeIn2ndColumn = readObjectAtPos(rowsTab, 1);
         if (isReadingWithError) {
-            GXDateTime gXDateTime = geTimeAsGXDateTime((timeInFirstColumn != null) ? timeInFirstColumn : timeIn2ndColumn);
-            result = getDataFromGXDateTime(gXDateTime, prevReadingsTime);
+            result = getDataFromClock((timeInFirstColumn != null) ? timeInFirstColumn : timeIn2ndColumn, prevReadingsTime);
         } else {
             if (timeInFirstColumn != null) {
-                GXDateTime gXDateTime = geTimeAsGXDateTime(timeInFirstColumn);
-                result = getDataFromGXDateTime(gXDateTime, prevReadingsTime);
+                result = getDataFromClock(timeInFirstColumn, prevReadingsTime);
             } else {
-                LocalDateTime prevReadingTimeTruncToSec = prevReadingsTime.withSecond(0).withNano(0);
-                int near15 = getNear15Minute(prevReadingTimeTruncToSec.getMinute());
-                if (near15 == 60) {
-                    prevReadingTimeTruncToSec = prevReadingTimeTruncToSec.withMinute(0).plusHours(1);
-                } else {
-                    prevReadingTimeTruncToSec = prevReadingTimeTruncToSec.withMinute(near15);
-                }
-                result = prevReadingTimeTruncToSec.plusMinutes(15);
+                // Row without clock is captured in the next interval after the previous row rounded up to the interval.
+                long prev = prevReadingsTime.withSecond(0).withNano(0).toEpochSecond(ZoneOffset.UTC);
+                long next = prev + Math.floorMod(-prev, capturePeriod) + capturePeriod;
+                result = LocalDateTime.ofEpochSecond(next, 0, ZoneOffset.UTC);
             }
         }
         return result;
     }
 
+    /**
+     * Time of the clock structure (octet string, status) decoded directly from the octet string,
+     * through {@link GXDateTime} only when the octet string is not a valid date-time.
+     */
+    LocalDateTime getDataFromClock(Object clock, LocalDateTime prevDate) {
+        if (clock instanceof GXStructure && ((GXStructure) clock).get(0) instanceof byte[]) {
+            long local = dateTime.localSecond((byte[]) ((GXStructure) clock).get(0),
+                    (prevDate != null) ? prevDate.toLocalDate().toEpochDay() : Long.MIN_VALUE);
+            if (local != ColumnarReadings.NO_TIME) {
+                return LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC);
+            }
+        }
+        return getDataFromGXDateTime(geTimeAsGXDateTime(clock), prevDate);
+    }
+
     LocalDateTime getDataFromGXDateTime(GXDateTime gxDateTime, LocalDateTime prevDate) {
         LocalDate localDate = null;
         LocalTime localTime = null;
@@ -138,32 +197,7 @@ public class ItronReadingConverter implements ReadingsConverter {
         return gxDateTime;
     }
 
-    public int getNear15Minute(int minutes) {
-        if (minutes <= 0) {
-            return 0;
-        }
-        if (minutes <= 15) {
-            return 15;
-        }
-        if (minutes <= 30) {
-            return 30;
-        }
-        if (minutes <= 45) {
-            return 45;
-        }
-        return 60;
-    }
-
     static int getColumnNumber(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> headers, String obis) {
-        int columnNb = 0;
-        boolean found = false;
-        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : headers) {
-            if (obis.equals(col.getKey().getLogicalName())) {
-                found = true;
-                break;
-            }
-            columnNb++;
-        }
-        return found ? columnNb : 0;
+        return ProjectionPlan.columnOf(headers, obis);
     }
 }
@@ -1,83 +1,75 @@
 package pl.meters.gurux.converters;
 
-import gurux.common.GXCommon;
-import gurux.dlms.GXDLMSClient;
 import gurux.dlms.GXDateTime;
-import gurux.dlms.GXStructure;
-import gurux.dlms.enums.DataType;
 import gurux.dlms.objects.GXDLMSCaptureObject;
 import gurux.dlms.objects.GXDLMSObject;
 import lombok.extern.slf4j.Slf4j;
 import pl.meters.gurux.dto.MeterParams;
 
-import java.text.DateFormat;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 @Slf4j
 public class MeterReadingConverter implements ReadingsConverter {
 
-    public List<Object[]> convert(Object[] cells, List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams){
-        List<Object[]> res = new ArrayList<>();
+    private final DlmsDateTime dateTime = DlmsDateTime.systemDefault();
 
-        int colNb_Clock = getColumnNumber(obj, meterParams.getClockObis());
-        for (Object rows : cells) {
-            Object[] resultRow = new Object[meterParams.getFieldsOfProfileLn().size() + 1];
-            Object[] rowsTab = (Object[]) rows;
-            Object clockObjFromMeter = rowsTab[colNb_Clock];
-            resultRow[0] = getLocalDateTimeValue(clockObjFromMeter);
-            int i = 1;
-            for (String obisOfField : meterParams.getFieldsOfProfileLn()) {
-                int colNb = getColumnNumber(obj, obisOfField);
-                Object readingsObjFromMeter = rowsTab[colNb];
-                Double valueFromMeter = Double.valueOf(getValueAsString(readingsObjFromMeter));
-                resultRow[i] = valueFromMeter;
-                i++;
-            }
-            res.add(resultRow);
+    public ProjectionPlan compile(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams) {
+        List<String> fields = meterParams.getFieldsOfProfileLn();
+        int[] columns = new int[fields.size() + 1];
+        ColumnDecoder[] decoders = new ColumnDecoder[fields.size() + 1];
+        columns[0] = getColumnNumber(obj, meterParams.getClockObis());
+        decoders[0] = this::getLocalDateTimeValue;
+        int i = 1;
+        for (String obisOfField : fields) {
+            columns[i] = getColumnNumber(obj, obisOfField);
+            decoders[i] = ValueDecoder.INSTANCE;
+            i++;
         }
-        return res;
+        return new ProjectionPlan(obj, columns, decoders);
+    }
+
+    public RowConverter rowConverter(ProjectionPlan plan) {
+        return rowsTab -> {
+            Object[] resultRow = new Object[plan.size()];
+            plan.project(rowsTab, resultRow, 0);
+            return resultRow;
+        };
+    }
+
+    public ColumnarConverter columnarConverter(ProjectionPlan plan) {
+        return (rowsTab, readings) -> {
+            int row = readings.appendRow(getEpochSecond(rowsTab[plan.column(0)]));
+            plan.projectValues(rowsTab, 1, readings, row);
+        };
     }
 
 
     int getColumnNumber(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> headers, String obis) {
-        int columnNb = 0;
-        boolean found = false;
-        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : headers) {
-            if (obis.equals(col.getKey().getLogicalName())) {
-                found = true;
-                break;
-            }
-            columnNb++;
-        }
-        return found ? columnNb : 0;
+        return ProjectionPlan.columnOf(headers, obis);
     }
 
-    private  String getLocalDateTimeValue(Object obj) {
-        String time = null;
+    /**
+     * Clock cell decoded by Gurux or, when its type was not known, date-time octet string.
+     */
+    private long getEpochSecond(Object obj) {
         if (obj instanceof GXDateTime) {
-            GXDateTime gxDateTime = (GXDateTime) obj;
-            LocalDateTime dateTime = LocalDateTime.ofInstant(gxDateTime.getLocalCalendar().toInstant(), ZoneId.systemDefault());
-            time = dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            return Math.floorDiv(((GXDateTime) obj).getValue().getTime(), 1000L);
         }
-        return time;
+        if (obj instanceof byte[]) {
+            return dateTime.epochSecond((byte[]) obj, Long.MIN_VALUE);
+        }
+        return ColumnarReadings.NO_TIME;
     }
 
-     String getValueAsString(Object obj) {
-        String result = "";
+    private String getLocalDateTimeValue(Object obj) {
+        if (obj instanceof GXDateTime) {
+            return DlmsDateTime.format(dateTime.localSecond(Math.floorDiv(((GXDateTime) obj).getValue().getTime(), 1000L)));
+        }
         if (obj instanceof byte[]) {
-            result = GXCommon.bytesToHex((byte[]) obj);
-        } else if (obj instanceof GXStructure) {
-            GXStructure objStruct = (GXStructure) obj;
-            Object date = GXDLMSClient.changeType((byte[]) objStruct.get(0), DataType.DATETIME);
-            result = date.toString();
-        } else {
-            result = String.valueOf(obj);
+            long local = dateTime.localSecond((byte[]) obj, Long.MIN_VALUE);
+            return local != ColumnarReadings.NO_TIME ? DlmsDateTime.format(local) : null;
         }
-        return result;
+        return null;
     }
 }
@@ -0,0 +1,96 @@
+package pl.meters.gurux.converters;
+
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSObject;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Positions of converted columns in rows of the profile buffer together with decoders of their cells.
+ * Compiled once per capture objects, so rows are converted without searching the header.
+ * Plan is immutable and can be shared between readings of meters with the same header.
+ */
+public final class ProjectionPlan {
+
+    private final String[] header;
+    private final int[] columns;
+    private final ColumnDecoder[] decoders;
+
+    public ProjectionPlan(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects, int[] columns,
+                          ColumnDecoder[] decoders) {
+        if (columns.length != decoders.length) {
+            throw new IllegalArgumentException("columns " + columns.length + ", decoders " + decoders.length);
+        }
+        this.header = new String[captureObjects.size()];
+        int i = 0;
+        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : captureObjects) {
+            header[i++] = col.getKey().getLogicalName();
+        }
+        this.columns = columns.clone();
+        this.decoders = decoders.clone();
+    }
+
+    /**
+     * Number of projected columns.
+     */
+    public int size() {
+        return columns.length;
+    }
+
+    /**
+     * Position in the row of the projected column {@code i}.
+     */
+    public int column(int i) {
+        return columns[i];
+    }
+
+    /**
+     * Decodes projected columns of the row into {@code target} starting at {@code offset}.
+     */
+    public void project(Object[] row, Object[] target, int offset) {
+        for (int i = 0; i < columns.length; i++) {
+            target[offset + i] = decoders[i].decode(row[columns[i]]);
+        }
+    }
+
+    /**
+     * Decodes projected columns from {@code first} as primitives into {@code row} of the readings,
+     * projected column {@code first} goes to column 0 of the readings.
+     */
+    public void projectValues(Object[] row, int first, ColumnarReadings readings, int rowIndex) {
+        for (int i = first; i < columns.length; i++) {
+            readings.set(i - first, rowIndex, decoders[i].decodeDouble(row[columns[i]]));
+        }
+    }
+
+    /**
+     * Returns true if the plan was compiled for the same capture objects.
+     */
+    public boolean matches(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects) {
+        if (captureObjects.size() != header.length) {
+            return false;
+        }
+        int i = 0;
+        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : captureObjects) {
+            if (!header[i++].equals(col.getKey().getLogicalName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Position of the column with given OBIS, first column when header does not contain it.
+     */
+    static int columnOf(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects, String obis) {
+        int columnNb = 0;
+        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : captureObjects) {
+            if (obis.equals(col.getKey().getLogicalName())) {
+                return columnNb;
+            }
+            columnNb++;
+        }
+        return 0;
+    }
+}
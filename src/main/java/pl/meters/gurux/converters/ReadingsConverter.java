@@ -4,10 +4,46 @@ import gurux.dlms.objects.GXDLMSCaptureObject;
 import gurux.dlms.objects.GXDLMSObject;
 import pl.meters.gurux.dto.MeterParams;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 public interface ReadingsConverter {
 
-    List<Object[]> convert(Object[] cells, List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams);
+    /**
+     * Compiles positions and decoders of the requested columns for given capture objects.
+     */
+    ProjectionPlan compile(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams);
+
+    /**
+     * Creates converter of rows with the plan, rows can be converted as soon as they arrive.
+     */
+    RowConverter rowConverter(ProjectionPlan plan);
+
+    /**
+     * Creates converter of rows to primitive column buffers with the plan.
+     */
+    ColumnarConverter columnarConverter(ProjectionPlan plan);
+
+    default RowConverter rowConverter(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams) {
+        return rowConverter(compile(obj, meterParams));
+    }
+
+    default List<Object[]> convert(Object[] cells, List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams) {
+        RowConverter rowConverter = rowConverter(obj, meterParams);
+        List<Object[]> res = new ArrayList<>(cells.length);
+        for (Object rows : cells) {
+            res.add(rowConverter.convert((Object[]) rows));
+        }
+        return res;
+    }
+
+    default ColumnarReadings convertColumnar(Object[] cells, List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj, MeterParams meterParams) {
+        ColumnarConverter columnarConverter = columnarConverter(compile(obj, meterParams));
+        ColumnarReadings res = new ColumnarReadings(meterParams.getFieldsOfProfileLn(), cells.length);
+        for (Object rows : cells) {
+            columnarConverter.convert((Object[]) rows, res);
+        }
+        return res;
+    }
 }
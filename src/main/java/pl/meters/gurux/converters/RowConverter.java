@@ -0,0 +1,9 @@
+package pl.meters.gurux.converters;
+
+/**
+ * Converts rows of one reading, rows must be passed in the order they were read from the meter.
+ */
+public interface RowConverter {
+
+    Object[] convert(Object[] row);
+}
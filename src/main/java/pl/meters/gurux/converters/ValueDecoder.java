@@ -0,0 +1,83 @@
+package pl.meters.gurux.converters;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Decoder of numeric cells. Values are converted from types returned by Gurux (integers, unsigned integers
+ * widened to the next Java type, floats, BCD octet strings) straight to primitives, without formatting them
+ * as text. Scalers of registers are not applied here: Gurux applies them when it updates the buffer
+ * of the profile, values stay the same as returned before.
+ */
+public final class ValueDecoder implements ColumnDecoder {
+
+    public static final ValueDecoder INSTANCE = new ValueDecoder();
+
+    private ValueDecoder() {
+    }
+
+    /**
+     * Boxed value for row output. Float32 keeps its shortest decimal form, the same as it was always returned.
+     */
+    @Override
+    public Object decode(Object cell) {
+        if (cell instanceof Float) {
+            return Double.valueOf(cell.toString());
+        }
+        return decodeDouble(cell);
+    }
+
+    @Override
+    public double decodeDouble(Object cell) {
+        return toDouble(cell);
+    }
+
+    public static double toDouble(Object cell) {
+        if (cell instanceof Long || cell instanceof Integer || cell instanceof Short || cell instanceof Byte) {
+            return ((Number) cell).longValue();
+        }
+        if (cell instanceof Double || cell instanceof Float) {
+            return ((Number) cell).doubleValue();
+        }
+        if (cell instanceof BigInteger || cell instanceof BigDecimal) {
+            return ((Number) cell).doubleValue();
+        }
+        if (cell instanceof byte[] && isBcd((byte[]) cell)) {
+            return fromBcd((byte[]) cell);
+        }
+        return Double.parseDouble(String.valueOf(cell));
+    }
+
+    /**
+     * Integer value of the cell, for integral DLMS types only.
+     */
+    public static long toLong(Object cell) {
+        if (cell instanceof Number && !(cell instanceof Double || cell instanceof Float || cell instanceof BigDecimal)) {
+            return ((Number) cell).longValue();
+        }
+        if (cell instanceof byte[] && isBcd((byte[]) cell)) {
+            return fromBcd((byte[]) cell);
+        }
+        throw new NumberFormatException("not an integer value: " + cell);
+    }
+
+    static boolean isBcd(byte[] value) {
+        if (value.length == 0 || value.length > 9) {
+            return false;
+        }
+        for (byte b : value) {
+            if ((b & 0x0F) > 9 || ((b >> 4) & 0x0F) > 9) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long fromBcd(byte[] value) {
+        long result = 0;
+        for (byte b : value) {
+            result = result * 100 + ((b >> 4) & 0x0F) * 10 + (b & 0x0F);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+package pl.meters.gurux.diagnostics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.meters.gurux.MeterService;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Whole decoded buffer of the meter for debugging, enabled with {@code gurux.diagnostics.buffer-endpoint=true}.
+ * First line is the header (logical name and attribute of every column), then one line per row
+ * with cells as text. Reading for dump does not move high water mark of incremental reading and its rows
+ * are not stored.
+ */
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "gurux.diagnostics.buffer-endpoint", havingValue = "true")
+public class BufferDumpController {
+
+    private final MeterService meterService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(value = "/diagnostics/buffer", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> dumpBuffer(@RequestBody MeterParams meterParams) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                try {
+                    meterService.readMeterForDiagnostics(meterParams, new DecodedBufferListener() {
+                        @Override
+                        public void onHeader(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects) {
+                            try {
+                                generator.writeStartArray();
+                                for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : captureObjects) {
+                                    generator.writeString(col.getKey().getLogicalName() + ":" + col.getValue().getAttributeIndex());
+                                }
+                                generator.writeEndArray();
+                                generator.writeRaw('\n');
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+
+                        @Override
+                        public void onRows(Object[] cells) {
+                            try {
+                                for (Object row : cells) {
+                                    generator.writeStartArray();
+                                    for (Object cell : (Object[]) row) {
+                                        generator.writeString(RowDiagnostics.formatCell(cell));
+                                    }
+                                    generator.writeEndArray();
+                                    generator.writeRaw('\n');
+                                }
+                                generator.flush();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    });
+                } catch (Exception e) {
+                    IOException responseError = responseError(e);
+                    if (responseError != null) {
+                        throw responseError;
+                    }
+                    log.info("problem with reading  meter {} : {} ", meterParams.getHostName(), meterParams.getPort());
+                    generator.writeStartObject();
+                    generator.writeStringField("error", e.getMessage());
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().body(body);
+    }
+
+    /**
+     * Failure of writing the dump wrapped by the listener, or null when the meter read failed.
+     */
+    private static IOException responseError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UncheckedIOException) {
+                return ((UncheckedIOException) cause).getCause();
+            }
+        }
+        return null;
+    }
+}
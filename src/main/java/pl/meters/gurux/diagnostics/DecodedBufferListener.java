@@ -0,0 +1,27 @@
+package pl.meters.gurux.diagnostics;
+
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSObject;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives profile header and rows decoded from the meter before they are converted.
+ */
+public interface DecodedBufferListener {
+
+    DecodedBufferListener NONE = new DecodedBufferListener() {
+        @Override
+        public void onHeader(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects) {
+        }
+
+        @Override
+        public void onRows(Object[] cells) {
+        }
+    };
+
+    void onHeader(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects) throws Exception;
+
+    void onRows(Object[] cells) throws Exception;
+}
@@ -0,0 +1,37 @@
+package pl.meters.gurux.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Sampling of decoded rows logged for single meter, rows are logged when
+ * {@code logging.level.pl.meters.gurux.diagnostics=DEBUG}.
+ */
+@RestController
+@RequestMapping("/diagnostics/meters")
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+    private final RowDiagnostics rowDiagnostics;
+
+    @GetMapping
+    public Map<String, Sampling> getSampling() {
+        return rowDiagnostics.getMeterSampling();
+    }
+
+    @PutMapping
+    public Map<String, Sampling> setSampling(@RequestParam String meter,
+                                             @RequestParam(defaultValue = "10") int firstRows,
+                                             @RequestParam(defaultValue = "0") int everyRow) {
+        rowDiagnostics.setSampling(meter, new Sampling(firstRows, everyRow));
+        return rowDiagnostics.getMeterSampling();
+    }
+
+    @DeleteMapping
+    public Map<String, Sampling> clearSampling(@RequestParam String meter) {
+        rowDiagnostics.clearSampling(meter);
+        return rowDiagnostics.getMeterSampling();
+    }
+}
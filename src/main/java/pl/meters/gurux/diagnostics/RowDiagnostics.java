@@ -0,0 +1,101 @@
+package pl.meters.gurux.diagnostics;
+
+import gurux.common.GXCommon;
+import gurux.dlms.objects.GXDLMSCaptureObject;
+import gurux.dlms.objects.GXDLMSObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs profile header and sampled decoded rows at DEBUG level. Rows are sampled per meter
+ * ({@code gurux.diagnostics.first-rows}, {@code gurux.diagnostics.every-row} or set at runtime for single meter)
+ * and formatted only when they are really logged, with sampling off nothing is done per row.
+ */
+@Component
+@Slf4j
+public class RowDiagnostics {
+
+    private final Sampling defaultSampling;
+    private final Map<String, Sampling> meterSampling = new ConcurrentHashMap<>();
+
+    public RowDiagnostics(@Value("${gurux.diagnostics.first-rows:0}") int firstRows,
+                          @Value("${gurux.diagnostics.every-row:0}") int everyRow) {
+        this.defaultSampling = new Sampling(firstRows, everyRow);
+    }
+
+    public Sampling getSampling(String meter) {
+        return meterSampling.getOrDefault(meter, defaultSampling);
+    }
+
+    public void setSampling(String meter, Sampling sampling) {
+        log.info("diagnostics of meter {}: first rows {}, every row {}", meter, sampling.getFirstRows(), sampling.getEveryRow());
+        meterSampling.put(meter, sampling);
+    }
+
+    public void clearSampling(String meter) {
+        meterSampling.remove(meter);
+    }
+
+    public Map<String, Sampling> getMeterSampling() {
+        return new TreeMap<>(meterSampling);
+    }
+
+    /**
+     * Sampler of rows of one reading.
+     */
+    public RowSampler sampler(MeterParams meterParams) {
+        if (!log.isDebugEnabled()) {
+            return RowSampler.OFF;
+        }
+        String meter = meterParams.meterIdentity();
+        Sampling sampling = getSampling(meter);
+        return sampling.isOff() ? RowSampler.OFF : new RowSampler(meter, sampling);
+    }
+
+    public void header(RowSampler sampler, List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> obj) {
+        if (sampler.isOff()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        int i = 1;
+        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> col : obj) {
+            sb.append(String.format("%-25s", i + ": " + col.getKey().getLogicalName()));
+            i++;
+        }
+        log.debug("meter {} headers of profile: {}", sampler.getMeter(), sb);
+    }
+
+    public void rows(RowSampler sampler, Object[] cells) {
+        if (sampler.isOff()) {
+            return;
+        }
+        for (Object row : cells) {
+            long rowNb = sampler.next();
+            if (rowNb != 0) {
+                log.debug("meter {} row number: {} = {}", sampler.getMeter(), rowNb, formatRow((Object[]) row));
+            }
+        }
+    }
+
+    static String formatRow(Object[] row) {
+        StringBuilder sb = new StringBuilder();
+        int i = 1;
+        for (Object cell : row) {
+            String pattern = (i < 3) ? "%-25s" : "%-15s";
+            sb.append(String.format(pattern, i + ": " + formatCell(cell)));
+            i++;
+        }
+        return sb.toString();
+    }
+
+    static String formatCell(Object cell) {
+        return (cell instanceof byte[]) ? GXCommon.bytesToHex((byte[]) cell) : String.valueOf(cell);
+    }
+}
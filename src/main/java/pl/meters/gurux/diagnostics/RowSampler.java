@@ -0,0 +1,40 @@
+package pl.meters.gurux.diagnostics;
+
+/**
+ * Counts rows of one reading and tells which of them are logged.
+ */
+public class RowSampler {
+
+    public static final RowSampler OFF = new RowSampler("", Sampling.OFF);
+
+    private final String meter;
+    private final Sampling sampling;
+    private long rowNb;
+
+    RowSampler(String meter, Sampling sampling) {
+        this.meter = meter;
+        this.sampling = sampling;
+    }
+
+    public boolean isOff() {
+        return sampling.isOff();
+    }
+
+    String getMeter() {
+        return meter;
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return number of the row (from 1) if it is logged, 0 otherwise.
+     */
+    long next() {
+        rowNb++;
+        if (rowNb <= sampling.getFirstRows()
+                || (sampling.getEveryRow() > 0 && rowNb % sampling.getEveryRow() == 0)) {
+            return rowNb;
+        }
+        return 0;
+    }
+}
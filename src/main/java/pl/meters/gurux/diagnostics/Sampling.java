@@ -0,0 +1,21 @@
+package pl.meters.gurux.diagnostics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Which decoded rows are logged: first {@code firstRows} rows and every {@code everyRow}-th row after them.
+ */
+@Getter
+@AllArgsConstructor
+public class Sampling {
+
+    public static final Sampling OFF = new Sampling(0, 0);
+
+    private final int firstRows;
+    private final int everyRow;
+
+    public boolean isOff() {
+        return firstRows <= 0 && everyRow <= 0;
+    }
+}
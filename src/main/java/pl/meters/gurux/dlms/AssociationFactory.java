@@ -0,0 +1,12 @@
+package pl.meters.gurux.dlms;
+
+import pl.meters.gurux.dto.MeterParams;
+
+/**
+ * Creates reader with initialized connection (SNRM and AARQ done).
+ */
+@FunctionalInterface
+public interface AssociationFactory {
+
+    DLMSReader open(MeterParams meterParams) throws Exception;
+}
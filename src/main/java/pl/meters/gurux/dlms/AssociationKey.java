@@ -0,0 +1,40 @@
+package pl.meters.gurux.dlms;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import pl.meters.gurux.dto.MeterParams;
+
+/**
+ * Identifies DLMS association which can be reused by next reading of the same meter.
+ */
+@Getter
+@EqualsAndHashCode
+public class AssociationKey {
+    private final String hostName;
+    private final Short port;
+    private final Integer clientAddress;
+    private final Integer logicalAddress;
+    private final Integer physicalAddress;
+    private final String authentication;
+
+    public AssociationKey(String hostName, Short port, Integer clientAddress, Integer logicalAddress,
+                          Integer physicalAddress, String authentication) {
+        this.hostName = hostName;
+        this.port = port;
+        this.clientAddress = clientAddress;
+        this.logicalAddress = logicalAddress;
+        this.physicalAddress = physicalAddress;
+        this.authentication = authentication;
+    }
+
+    public static AssociationKey of(MeterParams meterParams) {
+        return new AssociationKey(meterParams.getHostName(), meterParams.getPort(), meterParams.getClientAddress(),
+                meterParams.getLogicalAddress(), meterParams.getPhysicalAddress(), meterParams.getAuthenticationStr());
+    }
+
+    @Override
+    public String toString() {
+        return hostName + ":" + port + " client " + clientAddress + " server " + logicalAddress + "/" + physicalAddress
+                + " " + authentication;
+    }
+}
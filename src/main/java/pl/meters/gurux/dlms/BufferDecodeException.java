@@ -0,0 +1,16 @@
+package pl.meters.gurux.dlms;
+
+/**
+ * Rows of the buffer do not match capture objects of the profile (column count or types),
+ * e.g. capture objects taken from the cache were changed in the meter.
+ */
+public class BufferDecodeException extends Exception {
+
+    public BufferDecodeException(String message) {
+        super(message);
+    }
+
+    public BufferDecodeException(String message, Throwable cause) {
+        super(message + ": " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,186 @@
+package pl.meters.gurux.dlms;
+
+import gurux.dlms.enums.ObjectType;
+import gurux.dlms.objects.*;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.converters.ProjectionPlan;
+import pl.meters.gurux.converters.ReadingsConverter;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of profile generic capture objects (attribute 3), so buffer can be read without reading the header first.
+ * Entries are kept in memory with LRU eviction and, when {@code directory} is set, stored as Gurux XML files.
+ * Projection plans of converters compiled for cached capture objects are kept with them in memory.
+ */
+@Component
+@Slf4j
+public class CaptureObjectCache {
+
+    private final int maxEntries;
+    private final File directory;
+    private final Map<Key, Header> entries;
+
+    public CaptureObjectCache(@Value("${gurux.capture-cache.max-entries:10000}") int maxEntries,
+                              @Value("${gurux.capture-cache.directory:}") String directory) {
+        this.maxEntries = maxEntries;
+        this.directory = directory.isEmpty() ? null : new File(directory);
+        if (this.directory != null && !this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IllegalStateException("cannot create capture object cache directory " + directory);
+        }
+        this.entries = new LinkedHashMap<Key, Header>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Header> eldest) {
+                return size() > CaptureObjectCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Sets cached capture objects on the profile generic.
+     *
+     * @return false if capture objects are not cached and must be read from the meter.
+     */
+    public boolean apply(MeterParams meterParams, GXDLMSProfileGeneric pg) {
+        Key key = Key.of(meterParams);
+        Header header;
+        synchronized (entries) {
+            header = entries.get(key);
+        }
+        if (header == null) {
+            List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects = load(key, pg.getLogicalName());
+            if (captureObjects == null) {
+                return false;
+            }
+            header = new Header(captureObjects);
+            synchronized (entries) {
+                entries.put(key, header);
+            }
+        }
+        // Column objects are shared between readings, Gurux only sets their data types when decoding the buffer.
+        for (Map.Entry<GXDLMSObject, GXDLMSCaptureObject> it : header.captureObjects) {
+            pg.addCaptureObject(it.getKey(), it.getValue().getAttributeIndex(), it.getValue().getDataIndex());
+        }
+        return true;
+    }
+
+    /**
+     * Stores capture objects read from the meter.
+     */
+    public void put(MeterParams meterParams, GXDLMSProfileGeneric pg) {
+        Key key = Key.of(meterParams);
+        synchronized (entries) {
+            entries.put(key, new Header(new ArrayList<>(pg.getCaptureObjects())));
+        }
+        if (directory != null) {
+            GXDLMSObjectCollection objects = new GXDLMSObjectCollection();
+            objects.add(pg);
+            GXXmlWriterSettings settings = new GXXmlWriterSettings();
+            settings.setIgnoreDefaultValues(false);
+            try {
+                objects.save(file(key).getPath(), settings);
+            } catch (Exception e) {
+                log.info("cannot store capture objects of meter {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Projection plan of the converter for the capture objects. Plan is compiled once and kept
+     * together with cached capture objects of the meter, until they are invalidated.
+     */
+    public ProjectionPlan plan(MeterParams meterParams, List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects,
+                               ReadingsConverter converter) {
+        String signature = converter.getClass().getName() + "_" + meterParams.getClockObis() + "_" + meterParams.getFieldsOfProfileLn();
+        Header header;
+        synchronized (entries) {
+            header = entries.get(Key.of(meterParams));
+        }
+        if (header != null) {
+            ProjectionPlan plan = header.plans.get(signature);
+            if (plan != null && plan.matches(captureObjects)) {
+                return plan;
+            }
+        }
+        ProjectionPlan plan = converter.compile(captureObjects, meterParams);
+        if (header != null && plan.matches(header.captureObjects)) {
+            header.plans.put(signature, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Removes capture objects, e.g. when buffer cannot be decoded with them.
+     */
+    public void invalidate(MeterParams meterParams) {
+        Key key = Key.of(meterParams);
+        log.info("capture objects of meter {} invalidated", key);
+        synchronized (entries) {
+            entries.remove(key);
+        }
+        if (directory != null && !file(key).delete()) {
+            log.debug("no stored capture objects of meter {}", key);
+        }
+    }
+
+    private List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> load(Key key, String profileLn) {
+        if (directory == null || !file(key).exists()) {
+            return null;
+        }
+        try {
+            GXDLMSObjectCollection objects = GXDLMSObjectCollection.load(file(key).getPath());
+            GXDLMSProfileGeneric stored = (GXDLMSProfileGeneric) objects.findByLN(ObjectType.PROFILE_GENERIC, profileLn);
+            return stored != null ? stored.getCaptureObjects() : null;
+        } catch (Exception e) {
+            log.info("cannot load capture objects of meter {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private File file(Key key) {
+        return new File(directory, key.toString().replaceAll("[^A-Za-z0-9._-]", "_") + ".xml");
+    }
+
+    private static class Header {
+        private final List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects;
+        private final Map<String, ProjectionPlan> plans = new ConcurrentHashMap<>();
+
+        Header(List<Map.Entry<GXDLMSObject, GXDLMSCaptureObject>> captureObjects) {
+            this.captureObjects = captureObjects;
+        }
+    }
+
+    @EqualsAndHashCode
+    static class Key {
+        private final String meter;
+        private final String profileLn;
+        private final int profileSn;
+        private final String firmware;
+
+        Key(String meter, String profileLn, int profileSn, String firmware) {
+            this.meter = meter;
+            this.profileLn = profileLn;
+            this.profileSn = profileSn;
+            this.firmware = firmware;
+        }
+
+        static Key of(MeterParams meterParams) {
+            return new Key(meterParams.meterIdentity(), meterParams.getProfileToReadLn(), meterParams.getProfileToReadSn(),
+                    meterParams.getFirmwareVersion() != null ? meterParams.getFirmwareVersion() : "");
+        }
+
+        @Override
+        public String toString() {
+            return meter + "_" + profileLn + "_" + profileSn + "_" + firmware;
+        }
+    }
+}
@@ -14,6 +14,11 @@ public interface DLMSReader {
 
     void closeConnection() throws Exception;
 
+    /**
+     * Returns true if connection to the meter is still open.
+     */
+    boolean isConnected();
+
     /**
      * Read association view.
      */
@@ -32,6 +37,23 @@ public interface DLMSReader {
     Object[] readRowsByRange(final GXDLMSProfileGeneric pg,
                              final GXDateTime start, final GXDateTime end) throws Exception;
 
+    /**
+     * Read Profile Generic's data by entry start and count.
+     */
+    Object[] readRowsByEntry(GXDLMSProfileGeneric pg, int index, int count) throws Exception;
+
+    /**
+     * Read Profile Generic's data by range, rows are passed to the consumer block by block.
+     */
+    void readRowsByRange(GXDLMSProfileGeneric pg, GXDateTime start, GXDateTime end,
+                         RowsConsumer consumer) throws Exception;
+
+    /**
+     * Read Profile Generic's data by entry, rows are passed to the consumer block by block.
+     */
+    void readRowsByEntry(GXDLMSProfileGeneric pg, int index, int count,
+                         RowsConsumer consumer) throws Exception;
+
     public void getProfileGenericColumns();
 
     public void readScalerAndUnits() throws Exception;
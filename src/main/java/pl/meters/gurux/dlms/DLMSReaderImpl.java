@@ -7,9 +7,13 @@ import gurux.common.enums.TraceLevel;
 import gurux.dlms.*;
 import gurux.dlms.enums.*;
 import gurux.dlms.objects.*;
-import gurux.net.GXNet;
 import lombok.extern.slf4j.Slf4j;
 import pl.meters.gurux.dlms.DLMSReader;
+import pl.meters.gurux.metrics.SessionMetrics;
+import pl.meters.gurux.metrics.SessionPhase;
+import pl.meters.gurux.trace.SessionTrace;
+import pl.meters.gurux.transport.DlmsTransport;
+import pl.meters.gurux.transport.GXMediaTransport;
 
 import java.io.*;
 import java.lang.reflect.Array;
@@ -19,33 +23,75 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 public class DLMSReaderImpl implements DLMSReader {
-    IGXMedia Media;
+    DlmsTransport Media;
     TraceLevel Trace;
     GXDLMSClient dlms;
     boolean iec;
-    java.nio.ByteBuffer replyBuff;
-    int waitTime = 60000;
+    /**
+     * Receive parameters, received bytes and replies are reused by all requests of the session,
+     * requests are not sent concurrently.
+     */
+    private final ReceiveParameters<byte[]> receiveParameters = new ReceiveParameters<byte[]>(byte[].class);
+    private final GXByteBuffer received;
+    private final GXReplyData notify = new GXReplyData();
+    private final GXReplyData reply = new GXReplyData();
+    /**
+     * Guards request/reply exchange on the media. ReentrantLock is used instead of synchronized,
+     * because waiting for the reply inside synchronized block pins carrier of virtual thread.
+     */
+    private final ReentrantLock exchangeLock = new ReentrantLock();
+    private final SessionTrace sessionTrace;
+    private final SessionMetrics metrics;
+    private final SessionRetry retry;
 
 
     public DLMSReaderImpl(GXDLMSClient client, IGXMedia media,
                           TraceLevel trace, final boolean useIec) {
+        this(client, media, trace, useIec, SessionTrace.NONE);
+    }
+
+    public DLMSReaderImpl(GXDLMSClient client, IGXMedia media,
+                          TraceLevel trace, final boolean useIec, SessionTrace sessionTrace) {
+        this(client, media, trace, useIec, sessionTrace, SessionMetrics.NONE, RetryPolicy.FIXED.session());
+    }
+
+    public DLMSReaderImpl(GXDLMSClient client, IGXMedia media, TraceLevel trace, final boolean useIec,
+                          SessionTrace sessionTrace, SessionMetrics metrics, SessionRetry retry) {
+        this(client, new GXMediaTransport(media), trace, useIec, sessionTrace, metrics, retry);
+    }
+
+    public DLMSReaderImpl(GXDLMSClient client, DlmsTransport transport, TraceLevel trace, final boolean useIec,
+                          SessionTrace sessionTrace, SessionMetrics metrics, SessionRetry retry) {
+        this.sessionTrace = sessionTrace;
+        this.metrics = metrics;
+        this.retry = retry;
         iec = useIec;
         Trace = trace;
-        Media = media;
+        Media = transport;
         dlms = client;
         if (dlms.getInterfaceType() == InterfaceType.WRAPPER) {
-            replyBuff = java.nio.ByteBuffer.allocate(8 + 1024);
+            received = new GXByteBuffer(8 + 1024);
         } else {
-            replyBuff = java.nio.ByteBuffer.allocate(100);
+            received = new GXByteBuffer(256);
         }
     }
 
+    /**
+     * Cleared reply of the session.
+     */
+    private GXReplyData sessionReply() {
+        reply.clear();
+        reply.setPeek(false);
+        return reply;
+    }
+
     void disconnect() throws Exception {
         if (Media != null && Media.isOpen()) {
-            GXReplyData reply = new GXReplyData();
+            GXReplyData reply = sessionReply();
             readDLMSPacket(dlms.disconnectRequest(), reply);
         }
     }
@@ -53,7 +99,8 @@ public class DLMSReaderImpl implements DLMSReader {
 
     void close() throws Exception {
         if (Media != null && Media.isOpen()) {
-            GXReplyData reply = new GXReplyData();
+            long start = System.nanoTime();
+            GXReplyData reply = sessionReply();
             try {
                 // Release is call only for secured connections.
                 // All meters are not supporting Release and it's causing
@@ -70,6 +117,7 @@ public class DLMSReaderImpl implements DLMSReader {
                 reply.clear();
                 readDLMSPacket(dlms.disconnectRequest(), reply);
                 Media.close();
+                metrics.record(SessionPhase.RELEASE, start);
             }
 
         }
@@ -80,6 +128,11 @@ public class DLMSReaderImpl implements DLMSReader {
         close();
     }
 
+    @Override
+    public boolean isConnected() {
+        return Media != null && Media.isOpen();
+    }
+
     String now() {
         return new SimpleDateFormat("HH:mm:ss.SSS")
                 .format(java.util.Calendar.getInstance().getTime());
@@ -89,23 +142,27 @@ public class DLMSReaderImpl implements DLMSReader {
         if (Trace.ordinal() >= level.ordinal()) {
             System.out.println(line);
         }
-        PrintWriter logFile = null;
-        try {
-            logFile = new PrintWriter(
-                    new BufferedWriter(new FileWriter("trace.txt", true)));
-            logFile.println(line);
-        } catch (IOException ex) {
-            log.error(ex.getMessage(), ex);
-            throw new RuntimeException(ex.getMessage());
-        } finally {
-            if (logFile != null) {
-                logFile.close();
-            }
+        sessionTrace.text(line);
+    }
+
+    /**
+     * Frames are formatted only when console trace is verbose, trace sink gets raw bytes.
+     */
+    void traceFrame(boolean tx, byte[] data) {
+        if (Trace.ordinal() >= TraceLevel.VERBOSE.ordinal()) {
+            System.out.println((tx ? "TX: " : "RX: ") + now() + "\t" + GXCommon.bytesToHex(data));
+        }
+        sessionTrace.frame(tx, data);
+    }
+
+    void traceFrame(boolean tx, GXByteBuffer data) {
+        if (Trace.ordinal() >= TraceLevel.VERBOSE.ordinal() || sessionTrace.isEnabled()) {
+            traceFrame(tx, data.subArray(0, data.size()));
         }
     }
 
     public void readDLMSPacket(byte[][] data) throws Exception {
-        GXReplyData reply = new GXReplyData();
+        GXReplyData reply = sessionReply();
         for (byte[] it : data) {
             reply.clear();
             readDLMSPacket(it, reply);
@@ -145,57 +202,81 @@ public class DLMSReaderImpl implements DLMSReader {
 
     /**
      * Read DLMS Data from the device. If access is denied return null.
+     * Request rejected by the meter is repeated after back-off while the retry policy allows it.
      */
     public void readDLMSPacket(byte[] data, GXReplyData reply)
             throws Exception {
         if (!reply.getStreaming() && (data == null || data.length == 0)) {
             return;
         }
-        GXReplyData notify = new GXReplyData();
-        reply.setError((short) 0);
-        Object eop = (byte) 0x7E;
-        // In network connection terminator is not used.
-        if (dlms.getInterfaceType() == InterfaceType.WRAPPER
-                && Media instanceof GXNet) {
-            eop = null;
-        }
-        Integer pos = 0;
-        boolean succeeded = false;
-        ReceiveParameters<byte[]> p =
-                new ReceiveParameters<byte[]>(byte[].class);
-        p.setEop(eop);
-        if (dlms.getInterfaceType() == InterfaceType.WRAPPER) {
-            p.setCount(8);
-        } else {
-            p.setCount(5);
+        for (int attempt = 1; ; attempt++) {
+            exchange(data, reply);
+            if (reply.getError() == 0) {
+                return;
+            }
+            if (reply.getError() != ErrorCode.REJECTED.getValue() || !retry.rejected(attempt)) {
+                throw new GXDLMSException(reply.getError());
+            }
+            metrics.rejected();
+            Thread.sleep(retry.backoffMillis(attempt));
         }
-        p.setWaitTime(waitTime);
-        GXByteBuffer rd = new GXByteBuffer();
-        synchronized (Media.getSynchronous()) {
+    }
+
+    /**
+     * Sends the request and receives whole reply. Reply timeout is taken from the retry policy, request is sent
+     * again while it allows.
+     */
+    private void exchange(byte[] data, GXReplyData reply) throws Exception {
+        exchangeLock.lock();
+        try {
+            notify.clear();
+            reply.setError((short) 0);
+            Object eop = (byte) 0x7E;
+            // In network connection terminator is not used.
+            if (dlms.getInterfaceType() == InterfaceType.WRAPPER
+                    && Media.isNetwork()) {
+                eop = null;
+            }
+            int pos = 0;
+            boolean succeeded = false;
+            ReceiveParameters<byte[]> p = receiveParameters;
+            p.setReply(null);
+            p.setEop(eop);
+            if (dlms.getInterfaceType() == InterfaceType.WRAPPER) {
+                p.setCount(8);
+            } else {
+                p.setCount(5);
+            }
+            long sent = System.nanoTime();
+            GXByteBuffer rd = received;
+            rd.clear();
             while (!succeeded) {
                 if (!reply.isStreaming()) {
-                    writeTrace(
-                            "TX: " + now() + "\t" + GXCommon.bytesToHex(data),
-                            TraceLevel.VERBOSE);
-                    Media.send(data, null);
+                    traceFrame(true, data);
+                    sent = System.nanoTime();
+                    Media.send(data);
+                    metrics.frameSent(data.length);
                 }
                 if (p.getEop() == null) {
                     p.setCount(1);
                 }
-                succeeded = Media.receive(p);
+                p.setWaitTime(retry.timeoutMillis());
+                succeeded = Media.receive(p, rd);
+                if (succeeded && pos == 0 && !reply.isStreaming()) {
+                    retry.answered(System.nanoTime() - sent);
+                }
                 if (!succeeded) {
                     if (p.getEop() == null) {
                         p.setCount(dlms.getFrameSize(rd));
                     }
                     // Try to read again...
-                    if (pos++ == 3) {
+                    if (!retry.timedOut(pos++)) {
                         throw new RuntimeException("Failed to receive reply from the device in given time.");
                     }
-                    System.out.println("Data send failed. Try to resend "
-                            + pos.toString() + "/3");
+                    metrics.retry();
+                    System.out.println("Data send failed. Try to resend " + pos);
                 }
             }
-            rd = new GXByteBuffer(p.getReply());
             int msgPos = 0;
             // Loop until whole DLMS packet is received.
             try {
@@ -217,37 +298,38 @@ public class DLMSReaderImpl implements DLMSReader {
                     if (p.getEop() == null) {
                         p.setCount(dlms.getFrameSize(rd));
                     }
-                    while (!Media.receive(p)) {
+                    p.setWaitTime(retry.timeoutMillis());
+                    rd.position(msgPos);
+                    while (!Media.receive(p, rd)) {
                         // If echo.
                         if (reply.isEcho()) {
-                            Media.send(data, null);
+                            Media.send(data);
+                            metrics.frameSent(data.length);
                         }
                         // Try to read again...
-                        if (++pos == 3) {
+                        if (!retry.timedOut(pos++)) {
                             throw new Exception("Failed to receive reply from the device in given time.");
                         }
-                        System.out.println("Data send failed. Try to resend "
-                                + pos.toString() + "/3");
+                        metrics.retry();
+                        p.setWaitTime(retry.timeoutMillis());
+                        System.out.println("Data send failed. Try to resend " + pos);
                     }
-                    rd.position(msgPos);
-                    rd.set(p.getReply());
                 }
             } catch (Exception ex) {
-                writeTrace("RX: " + now() + "\t" + rd.toString(),
-                        TraceLevel.ERROR);
-                log.error("RX: " + now() + "\t" + rd.toString(), ex);
+                if (sessionTrace.isEnabled()) {
+                    sessionTrace.frame(false, rd.subArray(0, rd.size()));
+                }
+                if (Trace.ordinal() >= TraceLevel.VERBOSE.ordinal()) {
+                    log.error("RX: " + now() + "\t" + rd, ex);
+                } else {
+                    log.error("RX: {} bytes cannot be parsed", rd.size(), ex);
+                }
                 throw ex;
             }
-        }
-        writeTrace("RX: " + now() + "\t" + rd.toString(), TraceLevel.VERBOSE);
-        if (reply.getError() != 0) {
-            if (reply.getError() == ErrorCode.REJECTED.getValue()) {
-                Thread.sleep(1000);
-                readDLMSPacket(data, reply);
-            }
-            else {
-               throw new GXDLMSException(reply.getError());
-            }
+            traceFrame(false, rd);
+            metrics.frameReceived(rd.size());
+        } finally {
+            exchangeLock.unlock();
         }
     }
 
@@ -290,10 +372,15 @@ public class DLMSReaderImpl implements DLMSReader {
      */
     @Override
     public void initializeConnection() throws Exception {
+        long start = System.nanoTime();
         Media.open();
-        GXReplyData reply = new GXReplyData();
+        metrics.record(SessionPhase.CONNECT, start);
+        GXReplyData reply = sessionReply();
+        start = System.nanoTime();
         snrmRequest(reply);
+        metrics.record(SessionPhase.SNRM, start);
         reply.clear();
+        start = System.nanoTime();
         aarqRequest(reply);
         // Parse reply.
         dlms.parseAareResponse(reply.getData());
@@ -306,6 +393,7 @@ public class DLMSReaderImpl implements DLMSReader {
             }
             dlms.parseApplicationAssociationResponse(reply.getData());
         }
+        metrics.record(SessionPhase.AARQ, start);
     }
 //    AARE request
 //    This is the first command that is mandatory for all connections and device types.
@@ -342,7 +430,7 @@ public class DLMSReaderImpl implements DLMSReader {
         byte[] data;
         data = dlms.read(item.getName(), item.getObjectType(),
                 attributeIndex)[0];
-        GXReplyData reply = new GXReplyData();
+        GXReplyData reply = sessionReply();
         readDataBlock(data, reply);
         // Update data type on read.
         if (item.getDataType(attributeIndex) == DataType.NONE) {
@@ -358,7 +446,7 @@ public class DLMSReaderImpl implements DLMSReader {
             throws Exception {
         if (!list.isEmpty()) {
             byte[][] data = dlms.readList(list);
-            GXReplyData reply = new GXReplyData();
+            GXReplyData reply = sessionReply();
             List<Object> values = new ArrayList<Object>(list.size());
             for (byte[] it : data) {
                 readDataBlock(it, reply);
@@ -396,7 +484,7 @@ public class DLMSReaderImpl implements DLMSReader {
         Object entries = read(pg, 7);
         System.out.println("Reading Profile Generic: " + pg.getLogicalName()
                 + " " + pg.getDescription() + " entries:" + entries.toString());
-        GXReplyData reply = new GXReplyData();
+        GXReplyData reply = sessionReply();
         byte[] data = dlms.read(pg.getName(), pg.getObjectType(), 3)[0];
         readDataBlock(data, reply);
         dlms.updateValue((GXDLMSObject) pg, 3, reply.getValue());
@@ -415,7 +503,7 @@ public class DLMSReaderImpl implements DLMSReader {
     public Object[] readRowsByEntry(GXDLMSProfileGeneric pg, int index,
                                     int count) throws Exception {
         byte[][] data = dlms.readRowsByEntry(pg, index, count);
-        GXReplyData reply = new GXReplyData();
+        GXReplyData reply = sessionReply();
         readDataBlock(data, reply);
         return (Object[]) dlms.updateValue(pg, 2, reply.getValue());
     }
@@ -431,7 +519,7 @@ public class DLMSReaderImpl implements DLMSReader {
      */
     public Object[] readRowsByRange(final GXDLMSProfileGeneric pg,
                                     final Date start, final Date end) throws Exception {
-        GXReplyData reply = new GXReplyData();
+        GXReplyData reply = sessionReply();
         byte[][] data = dlms.readRowsByRange(pg, start, end);
         readDataBlock(data, reply);
         return (Object[]) dlms.updateValue(pg, 2, reply.getValue());
@@ -448,12 +536,75 @@ public class DLMSReaderImpl implements DLMSReader {
      */
     public Object[] readRowsByRange(final GXDLMSProfileGeneric pg,
                                     final GXDateTime start, final GXDateTime end) throws Exception {
-        GXReplyData reply = new GXReplyData();
+        GXReplyData reply = sessionReply();
         byte[][] data = dlms.readRowsByRange(pg, start, end);
         readDataBlock(data, reply);
         return (Object[]) dlms.updateValue(pg, 2, reply.getValue());
     }
 
+    @Override
+    public void readRowsByRange(final GXDLMSProfileGeneric pg, final GXDateTime start,
+                                final GXDateTime end, RowsConsumer consumer) throws Exception {
+        readRows(pg, dlms.readRowsByRange(pg, start, end), consumer);
+    }
+
+    @Override
+    public void readRowsByEntry(GXDLMSProfileGeneric pg, int index, int count,
+                                RowsConsumer consumer) throws Exception {
+        readRows(pg, dlms.readRowsByEntry(pg, index, count), consumer);
+    }
+
+    /**
+     * Reads profile generic buffer and hands over rows decoded since the previous block after every received
+     * block, so converted rows are never collected for the whole buffer.
+     */
+    private void readRows(GXDLMSProfileGeneric pg, byte[][] data, RowsConsumer consumer) throws Exception {
+        GXReplyData reply = sessionReply();
+        int emitted = 0;
+        for (byte[] it : data) {
+            reply.clear();
+            emitted = 0;
+            reply.setPeek(true);
+            readDLMSPacket(it, reply);
+            emitted = emitRows(pg, reply, consumer, emitted);
+            while (reply.isMoreData()) {
+                byte[] next = reply.isStreaming() ? null : dlms.receiverReady(reply);
+                readDLMSPacket(next, reply);
+                emitted = emitRows(pg, reply, consumer, emitted);
+            }
+        }
+        emitRows(pg, reply, consumer, emitted);
+    }
+
+    /**
+     * Passes rows decoded since {@code emitted} to the consumer. List of the reply is not changed, Gurux takes
+     * its size as index of the next decoded row.
+     *
+     * @return number of rows of the reply passed to the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    private int emitRows(GXDLMSProfileGeneric pg, GXReplyData reply, RowsConsumer consumer, int emitted) throws Exception {
+        if (!(reply.getValue() instanceof List)) {
+            return emitted;
+        }
+        List<Object> decoded = (List<Object>) reply.getValue();
+        int size = decoded.size();
+        if (size <= emitted) {
+            return emitted;
+        }
+        List<Object> chunk = new ArrayList<>(decoded.subList(emitted, size));
+        pg.getBuffer().clear();
+        Object[] rows;
+        try {
+            rows = (Object[]) dlms.updateValue(pg, 2, chunk);
+        } catch (RuntimeException e) {
+            throw new BufferDecodeException("buffer does not match capture objects", e);
+        }
+        pg.getBuffer().clear();
+        consumer.accept(rows);
+        return size;
+    }
+
     /*
      * Read Scalers and units from the register objects.
      */
@@ -719,7 +870,7 @@ public class DLMSReaderImpl implements DLMSReader {
 
     @Override
     public void readAssociationView() throws Exception {
-        GXReplyData reply = new GXReplyData();
+        GXReplyData reply = sessionReply();
         // Get Association view from the meter.
         readDataBlock(dlms.getObjectsRequest(), reply);
         GXDLMSObjectCollection objects = dlms.parseObjects(reply.getData(), true);
@@ -0,0 +1,183 @@
+package pl.meters.gurux.dlms;
+
+import gurux.dlms.objects.GXDLMSClock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+
+import javax.annotation.PreDestroy;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Keeps open DLMS associations, so next reading of the same meter skips SNRM/UA and AARQ/AARE.
+ * <p>
+ * Idle associations are closed before meter's inactivity timeout ends ({@code idleTimeoutSeconds} must be shorter
+ * than it) and after {@code maxLifetimeSeconds}. Association idle longer than {@code validateAfterSeconds}
+ * is checked by reading the clock before it is reused.
+ */
+@Component
+@Slf4j
+public class DLMSReaderPool {
+
+    private final boolean enabled;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final long validateAfterNanos;
+    private final int maxIdlePerKey;
+    private final Map<AssociationKey, Deque<PooledAssociation>> idle = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter validationFailures;
+    private final Timer handshakeTime;
+    private final ScheduledExecutorService evictor;
+
+    public DLMSReaderPool(MeterRegistry registry,
+                          @Value("${gurux.pool.enabled:false}") boolean enabled,
+                          @Value("${gurux.pool.idle-timeout-seconds:100}") long idleTimeoutSeconds,
+                          @Value("${gurux.pool.max-lifetime-seconds:3600}") long maxLifetimeSeconds,
+                          @Value("${gurux.pool.validate-after-seconds:10}") long validateAfterSeconds,
+                          @Value("${gurux.pool.max-idle-per-meter:1}") int maxIdlePerKey) {
+        this.enabled = enabled;
+        this.idleTimeoutNanos = TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+        this.maxLifetimeNanos = TimeUnit.SECONDS.toNanos(maxLifetimeSeconds);
+        this.validateAfterNanos = TimeUnit.SECONDS.toNanos(validateAfterSeconds);
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.hits = Counter.builder("dlms.association.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("dlms.association.requests").tag("result", "miss").register(registry);
+        this.validationFailures = Counter.builder("dlms.association.validation.failures").register(registry);
+        this.handshakeTime = Timer.builder("dlms.association.handshake")
+                .description("SNRM and AARQ exchange of new association")
+                .register(registry);
+        Gauge.builder("dlms.association.idle", idle, DLMSReaderPool::idleCount).register(registry);
+        if (enabled) {
+            evictor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("association-evictor-"));
+            long period = Math.max(1, idleTimeoutSeconds / 4);
+            evictor.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.SECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    /**
+     * Returns idle association of the meter or opens new one with {@code factory}.
+     */
+    public PooledAssociation borrow(MeterParams meterParams, AssociationFactory factory) throws Exception {
+        AssociationKey key = AssociationKey.of(meterParams);
+        if (enabled) {
+            Deque<PooledAssociation> associations = idle.get(key);
+            PooledAssociation association;
+            while (associations != null && (association = associations.pollFirst()) != null) {
+                if (isExpired(association, System.nanoTime())) {
+                    closeQuietly(association, "expired");
+                } else if (isValid(association, meterParams)) {
+                    hits.increment();
+                    association.borrowed();
+                    log.info("reusing association to meter {}", key);
+                    return association;
+                }
+            }
+        }
+        misses.increment();
+        long start = System.nanoTime();
+        DLMSReader reader = factory.open(meterParams);
+        handshakeTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new PooledAssociation(key, reader);
+    }
+
+    /**
+     * Gives back association after successful reading, it is kept open for next reading or closed.
+     */
+    public void release(PooledAssociation association) {
+        long now = System.nanoTime();
+        if (!enabled || association.ageNanos(now) >= maxLifetimeNanos || !association.getReader().isConnected()) {
+            closeQuietly(association, "released");
+            return;
+        }
+        association.returned();
+        Deque<PooledAssociation> associations = idle.computeIfAbsent(association.getKey(), k -> new ConcurrentLinkedDeque<>());
+        if (associations.size() >= maxIdlePerKey) {
+            closeQuietly(association, "too many idle associations");
+        } else {
+            associations.addFirst(association);
+        }
+    }
+
+    /**
+     * Closes association which failed, it will not be reused.
+     */
+    public void invalidate(PooledAssociation association) {
+        closeQuietly(association, "invalidated");
+    }
+
+    @PreDestroy
+    public void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (Deque<PooledAssociation> associations : idle.values()) {
+            PooledAssociation association;
+            while ((association = associations.pollFirst()) != null) {
+                closeQuietly(association, "shutdown");
+            }
+        }
+    }
+
+    void evictExpired() {
+        long now = System.nanoTime();
+        for (Deque<PooledAssociation> associations : idle.values()) {
+            for (PooledAssociation association : associations) {
+                // Association borrowed in the meantime is not in the deque anymore and is not closed here.
+                if (isExpired(association, now) && associations.remove(association)) {
+                    closeQuietly(association, "idle timeout");
+                }
+            }
+        }
+    }
+
+    private boolean isExpired(PooledAssociation association, long now) {
+        return association.idleNanos(now) >= idleTimeoutNanos || association.ageNanos(now) >= maxLifetimeNanos;
+    }
+
+    private boolean isValid(PooledAssociation association, MeterParams meterParams) {
+        DLMSReader reader = association.getReader();
+        if (!reader.isConnected()) {
+            validationFailures.increment();
+            closeQuietly(association, "link dropped");
+            return false;
+        }
+        if (association.idleNanos(System.nanoTime()) < validateAfterNanos) {
+            return true;
+        }
+        try {
+            reader.read(new GXDLMSClock(meterParams.getClockObis(), meterParams.getClockShortName()), 2);
+            return true;
+        } catch (Exception e) {
+            validationFailures.increment();
+            log.info("association to meter {} is not valid anymore: {}", association.getKey(), e.getMessage());
+            closeQuietly(association, "validation failed");
+            return false;
+        }
+    }
+
+    private void closeQuietly(PooledAssociation association, String reason) {
+        log.info("close connection on meter {} ({})", association.getKey(), reason);
+        try {
+            association.getReader().closeConnection();
+        } catch (Exception e) {
+            log.info("problem with closing connection meter {} , meter may be blocked :(", association.getKey());
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    private static double idleCount(Map<AssociationKey, Deque<PooledAssociation>> idle) {
+        return idle.values().stream().mapToInt(Deque::size).sum();
+    }
+}
@@ -0,0 +1,69 @@
+package pl.meters.gurux.dlms;
+
+import gurux.dlms.GXDLMSClient;
+import gurux.dlms.GXDLMSLimits;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * HDLC max info field length and window size (SNRM/UA) and max PDU size (AARQ/AARE) of the association.
+ * Larger info field and PDU mean fewer frames and fewer {@code receiverReady} round trips per block of buffer.
+ */
+@Getter
+@EqualsAndHashCode
+public class LinkProfile {
+
+    private final int maxInfoTx;
+    private final int maxInfoRx;
+    private final int windowSizeTx;
+    private final int windowSizeRx;
+    private final int maxPduSize;
+
+    public LinkProfile(int maxInfoTx, int maxInfoRx, int windowSizeTx, int windowSizeRx, int maxPduSize) {
+        this.maxInfoTx = maxInfoTx;
+        this.maxInfoRx = maxInfoRx;
+        this.windowSizeTx = windowSizeTx;
+        this.windowSizeRx = windowSizeRx;
+        this.maxPduSize = maxPduSize;
+    }
+
+    /**
+     * Parses {@code maxInfo,windowSize,maxPduSize}, the same values for both directions.
+     */
+    public static LinkProfile parse(String value) {
+        String[] parts = value.trim().split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("link profile must be maxInfo,windowSize,maxPduSize: " + value);
+        }
+        int maxInfo = Integer.parseInt(parts[0].trim());
+        int windowSize = Integer.parseInt(parts[1].trim());
+        return new LinkProfile(maxInfo, maxInfo, windowSize, windowSize, Integer.parseInt(parts[2].trim()));
+    }
+
+    /**
+     * Values proposed by the client before connecting.
+     */
+    public void apply(GXDLMSClient client) {
+        GXDLMSLimits limits = client.getLimits();
+        limits.setMaxInfoTX(maxInfoTx);
+        limits.setMaxInfoRX(maxInfoRx);
+        limits.setWindowSizeTX(windowSizeTx);
+        limits.setWindowSizeRX(windowSizeRx);
+        client.setMaxReceivePDUSize(maxPduSize);
+    }
+
+    /**
+     * Values negotiated with the meter, Gurux updates them from UA and AARE.
+     */
+    public static LinkProfile of(GXDLMSClient client) {
+        GXDLMSLimits limits = client.getLimits();
+        return new LinkProfile(limits.getMaxInfoTX(), limits.getMaxInfoRX(), limits.getWindowSizeTX(),
+                limits.getWindowSizeRX(), client.getMaxReceivePDUSize());
+    }
+
+    @Override
+    public String toString() {
+        return "maxInfo " + maxInfoTx + "/" + maxInfoRx + " window " + windowSizeTx + "/" + windowSizeRx
+                + " pdu " + maxPduSize;
+    }
+}
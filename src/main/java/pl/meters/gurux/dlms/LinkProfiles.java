@@ -0,0 +1,89 @@
+package pl.meters.gurux.dlms;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Link profiles proposed when connecting to the meter. Model profiles are configured per {@code meterProducer},
+ * with {@code probe} enabled the first connection to the meter proposes the largest values and values
+ * negotiated by the meter are remembered and proposed next time. Meter which does not answer the probe
+ * is connected with its model profile from then on.
+ */
+@Component
+@Slf4j
+public class LinkProfiles {
+
+    private final boolean probe;
+    private final LinkProfile probeProfile;
+    private final LinkProfile defaultProfile;
+    private final Map<String, LinkProfile> models = new HashMap<>();
+    private final Map<String, LinkProfile> negotiated = new ConcurrentHashMap<>();
+
+    /**
+     * @param models {@code PRODUCER:maxInfo,windowSize,maxPduSize} separated by {@code ;}.
+     */
+    public LinkProfiles(@Value("${gurux.link.probe:false}") boolean probe,
+                        @Value("${gurux.link.probe-profile:2030,1,65535}") String probeProfile,
+                        @Value("${gurux.link.default-profile:128,1,65535}") String defaultProfile,
+                        @Value("${gurux.link.profiles:}") String models) {
+        this.probe = probe;
+        this.probeProfile = LinkProfile.parse(probeProfile);
+        this.defaultProfile = LinkProfile.parse(defaultProfile);
+        for (String it : models.split(";")) {
+            if (it.isBlank()) {
+                continue;
+            }
+            int separator = it.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("link profile must be PRODUCER:maxInfo,windowSize,maxPduSize: " + it);
+            }
+            this.models.put(it.substring(0, separator).trim().toUpperCase(Locale.ROOT),
+                    LinkProfile.parse(it.substring(separator + 1)));
+        }
+    }
+
+    /**
+     * Profile to propose to the meter.
+     */
+    public LinkProfile profile(MeterParams meterParams) {
+        LinkProfile profile = negotiated.get(meterParams.meterIdentity());
+        if (profile != null) {
+            return profile;
+        }
+        return probe ? probeProfile : model(meterParams);
+    }
+
+    /**
+     * Remembers values the meter accepted.
+     */
+    public void connected(MeterParams meterParams, LinkProfile proposed, LinkProfile accepted) {
+        if (!accepted.equals(negotiated.put(meterParams.meterIdentity(), accepted))) {
+            log.info("link profile of meter {} : {} proposed {}, negotiated {}", meterParams.getHostName(),
+                    meterParams.getPort(), proposed, accepted);
+        }
+    }
+
+    /**
+     * Connection failed, probe is not tried again on this meter.
+     */
+    public void failed(MeterParams meterParams, LinkProfile proposed) {
+        if (proposed == probeProfile) {
+            log.info("meter {} : {} did not accept {}, using model profile", meterParams.getHostName(),
+                    meterParams.getPort(), proposed);
+            negotiated.put(meterParams.meterIdentity(), model(meterParams));
+        }
+    }
+
+    private LinkProfile model(MeterParams meterParams) {
+        String producer = meterParams.getMeterProducer();
+        LinkProfile profile = producer != null ? models.get(producer.toUpperCase(Locale.ROOT)) : null;
+        return profile != null ? profile : defaultProfile;
+    }
+}
@@ -0,0 +1,36 @@
+package pl.meters.gurux.dlms;
+
+import lombok.Getter;
+
+/**
+ * Open association borrowed from {@link DLMSReaderPool}. Only one session uses it at a time.
+ */
+@Getter
+public class PooledAssociation {
+    private final AssociationKey key;
+    private final DLMSReader reader;
+    private final long created = System.nanoTime();
+    private long lastUsed = created;
+    private boolean reused;
+
+    PooledAssociation(AssociationKey key, DLMSReader reader) {
+        this.key = key;
+        this.reader = reader;
+    }
+
+    void borrowed() {
+        reused = true;
+    }
+
+    void returned() {
+        lastUsed = System.nanoTime();
+    }
+
+    long idleNanos(long now) {
+        return now - lastUsed;
+    }
+
+    long ageNanos(long now) {
+        return now - created;
+    }
+}
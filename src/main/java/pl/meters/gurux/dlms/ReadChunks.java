@@ -0,0 +1,42 @@
+package pl.meters.gurux.dlms;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Splits range reading into requests of at most {@code hours}, so meter answers every request in reasonable time
+ * and high water mark of incremental reading moves after every chunk. Reading which fails after some rows
+ * were read is resumed after the last read row at most {@code maxResumes} times.
+ */
+@Component
+@Getter
+public class ReadChunks {
+
+    private final long hours;
+    private final int maxResumes;
+
+    public ReadChunks(@Value("${gurux.chunk.hours:0}") long hours,
+                      @Value("${gurux.chunk.max-resumes:2}") int maxResumes) {
+        this.hours = hours;
+        this.maxResumes = maxResumes;
+    }
+
+    /**
+     * End of the chunk starting at {@code from}, rows are captured at full minutes, so next chunk starts
+     * one minute later.
+     */
+    public LocalDateTime end(LocalDateTime from, LocalDateTime to) {
+        if (hours <= 0) {
+            return to;
+        }
+        LocalDateTime end = from.plusHours(hours).minusMinutes(1);
+        return end.isBefore(to) ? end : to;
+    }
+
+    public boolean isResumable() {
+        return maxResumes > 0;
+    }
+}
@@ -0,0 +1,91 @@
+package pl.meters.gurux.dlms;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reply timeouts and retries of DLMS requests. Reply timeout adapts to round trips observed on every meter
+ * ({@link RoundTripEstimator}), request is sent again at most {@code maxResends} times and after
+ * {@code REJECTED} reply it is repeated at most {@code rejectedRetries} times after jittered exponential
+ * back-off. All retries of a session are limited by its retry budget.
+ */
+@Component
+public class RetryPolicy {
+
+    /**
+     * Fixed 60 s timeout and 3 resends, used by readers created without policy.
+     */
+    public static final RetryPolicy FIXED = new RetryPolicy(60000, 60000, 60000, 3, 5, 1000, 1000, 100, 0.1);
+
+    private final long initialTimeoutMs;
+    private final long minTimeoutMs;
+    private final long maxTimeoutMs;
+    private final int maxResends;
+    private final int rejectedRetries;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final int budget;
+    private final double budgetRefill;
+    private final Map<String, RoundTripEstimator> estimators = new ConcurrentHashMap<>();
+
+    public RetryPolicy(@Value("${gurux.retry.initial-timeout-ms:10000}") long initialTimeoutMs,
+                       @Value("${gurux.retry.min-timeout-ms:3000}") long minTimeoutMs,
+                       @Value("${gurux.retry.max-timeout-ms:60000}") long maxTimeoutMs,
+                       @Value("${gurux.retry.max-resends:3}") int maxResends,
+                       @Value("${gurux.retry.rejected-retries:5}") int rejectedRetries,
+                       @Value("${gurux.retry.backoff-base-ms:500}") long backoffBaseMs,
+                       @Value("${gurux.retry.backoff-max-ms:10000}") long backoffMaxMs,
+                       @Value("${gurux.retry.budget:10}") int budget,
+                       @Value("${gurux.retry.budget-refill:0.1}") double budgetRefill) {
+        this.initialTimeoutMs = initialTimeoutMs;
+        this.minTimeoutMs = minTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+        this.maxResends = maxResends;
+        this.rejectedRetries = rejectedRetries;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.budget = budget;
+        this.budgetRefill = budgetRefill;
+    }
+
+    /**
+     * Retries of new session with the meter, timeouts learned in previous sessions are kept.
+     */
+    public SessionRetry session(MeterParams meterParams) {
+        return new SessionRetry(this, estimators.computeIfAbsent(meterParams.meterIdentity(),
+                it -> new RoundTripEstimator(initialTimeoutMs, minTimeoutMs, maxTimeoutMs)));
+    }
+
+    SessionRetry session() {
+        return new SessionRetry(this, new RoundTripEstimator(initialTimeoutMs, minTimeoutMs, maxTimeoutMs));
+    }
+
+    /**
+     * Random back-off between 0 and {@code backoffBaseMs * 2^(attempt - 1)}, at most {@code backoffMaxMs}.
+     */
+    long backoffMillis(int attempt) {
+        long ceiling = backoffBaseMs << Math.min(attempt - 1, 20);
+        return ThreadLocalRandom.current().nextLong(Math.min(backoffMaxMs, ceiling) + 1);
+    }
+
+    int getMaxResends() {
+        return maxResends;
+    }
+
+    int getRejectedRetries() {
+        return rejectedRetries;
+    }
+
+    int getBudget() {
+        return budget;
+    }
+
+    double getBudgetRefill() {
+        return budgetRefill;
+    }
+}
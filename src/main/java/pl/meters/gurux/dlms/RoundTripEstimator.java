@@ -0,0 +1,44 @@
+package pl.meters.gurux.dlms;
+
+/**
+ * Reply timeout of one meter computed from observed round-trip times the way TCP computes retransmission
+ * timeout (RFC 6298): smoothed round trip plus four times its mean deviation, which is above nearly all
+ * observed round trips. Timeout is doubled after every timeout and clamped to {@code min} - {@code max}.
+ */
+class RoundTripEstimator {
+
+    private final long minMillis;
+    private final long maxMillis;
+    private long smoothed = -1;
+    private long deviation;
+    private long timeout;
+
+    RoundTripEstimator(long initialMillis, long minMillis, long maxMillis) {
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+        this.timeout = clamp(initialMillis);
+    }
+
+    synchronized long timeoutMillis() {
+        return timeout;
+    }
+
+    synchronized void sample(long roundTripMillis) {
+        if (smoothed < 0) {
+            smoothed = roundTripMillis;
+            deviation = roundTripMillis / 2;
+        } else {
+            deviation = (3 * deviation + Math.abs(smoothed - roundTripMillis)) / 4;
+            smoothed = (7 * smoothed + roundTripMillis) / 8;
+        }
+        timeout = clamp(smoothed + 4 * deviation);
+    }
+
+    synchronized void timedOut() {
+        timeout = clamp(timeout * 2);
+    }
+
+    private long clamp(long millis) {
+        return Math.max(minMillis, Math.min(maxMillis, millis));
+    }
+}
@@ -0,0 +1,10 @@
+package pl.meters.gurux.dlms;
+
+/**
+ * Receives profile generic rows as they are decoded from the meter's reply blocks.
+ */
+@FunctionalInterface
+public interface RowsConsumer {
+
+    void accept(Object[] rows) throws Exception;
+}
@@ -0,0 +1,62 @@
+package pl.meters.gurux.dlms;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timeouts and retries of one session (reader). Every retry takes one token of the budget, every
+ * request answered without retry returns {@code budgetRefill} of token, so a session with dead meter
+ * or overloaded gateway stops retrying after {@code budget} retries.
+ */
+public class SessionRetry {
+
+    private final RetryPolicy policy;
+    private final RoundTripEstimator estimator;
+    private double tokens;
+
+    SessionRetry(RetryPolicy policy, RoundTripEstimator estimator) {
+        this.policy = policy;
+        this.estimator = estimator;
+        this.tokens = policy.getBudget();
+    }
+
+    public int timeoutMillis() {
+        return (int) estimator.timeoutMillis();
+    }
+
+    /**
+     * Round trip of request answered without resending (retransmitted requests are not sampled).
+     */
+    public void answered(long roundTripNanos) {
+        estimator.sample(TimeUnit.NANOSECONDS.toMillis(roundTripNanos));
+        tokens = Math.min(policy.getBudget(), tokens + policy.getBudgetRefill());
+    }
+
+    /**
+     * Reply did not come in time, timeout is doubled.
+     *
+     * @return true if request can be sent again after {@code resends} resends.
+     */
+    public boolean timedOut(int resends) {
+        estimator.timedOut();
+        return resends < policy.getMaxResends() && take();
+    }
+
+    /**
+     * @return true if request rejected {@code attempt} times can be repeated.
+     */
+    public boolean rejected(int attempt) {
+        return attempt <= policy.getRejectedRetries() && take();
+    }
+
+    public long backoffMillis(int attempt) {
+        return policy.backoffMillis(attempt);
+    }
+
+    private boolean take() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
@@ -8,17 +8,29 @@ import java.util.List;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class MeterParams {
+    /**
+     * Optional meter identifier (e.g. serial number), when missing meter is identified by its address.
+     */
+    private String meterId;
     private String meterProducer;
+    /**
+     * Optional firmware version, capture objects are cached per firmware.
+     */
+    private String firmwareVersion;
     private String hostName;
     private Short port;
     private Integer clientAddress;
     private Integer logicalAddress;
     private Integer physicalAddress;
     private String authenticationStr;
+    /**
+     * Optional framing, {@code HDLC} (default) or {@code WRAPPER}.
+     */
+    private String interfaceTypeStr;
     private Boolean useLogicalNameReferencing;
     private LocalDateTime from;
     private LocalDateTime to;
@@ -27,4 +39,24 @@ public class MeterParams {
     private int profileToReadSn;
     private String profileToReadLn;
     private List<String> fieldsOfProfileLn = new ArrayList<>();
+    /**
+     * Read only rows newer than last successfully read row of this meter and profile.
+     */
+    private Boolean incremental;
+    /**
+     * Priority of the reading among sessions waiting for the same gateway, higher goes first, default 0.
+     */
+    private Integer priority;
+    /**
+     * Optional check of row times against capture period of the profile, {@code MARK} or {@code FILL}
+     * ({@link pl.meters.gurux.converters.IntervalReconstructor.Mode}), rows then have flags as the last column.
+     */
+    private String intervals;
+
+    /**
+     * Returns meterId or, when not given, host, port and physical address of the meter.
+     */
+    public String meterIdentity() {
+        return meterId != null ? meterId : hostName + ":" + port + "/" + physicalAddress;
+    }
 }
@@ -0,0 +1,22 @@
+package pl.meters.gurux.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeterReadResult {
+    private String hostName;
+    private Short port;
+    private Integer physicalAddress;
+    private ReadStatus status;
+    private String error;
+    private long readingTimeMs;
+    @Builder.Default
+    private List<Object[]> readings = new ArrayList<>();
+}
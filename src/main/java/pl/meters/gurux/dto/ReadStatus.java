@@ -0,0 +1,14 @@
+package pl.meters.gurux.dto;
+
+public enum ReadStatus {
+    OK,
+    FAILED,
+    /**
+     * Reading failed, readings contain rows read before the failure.
+     */
+    INCOMPLETE,
+    /**
+     * Not read, gateway of the meter is unavailable.
+     */
+    SKIPPED
+}
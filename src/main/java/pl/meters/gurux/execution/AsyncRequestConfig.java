@@ -0,0 +1,35 @@
+package pl.meters.gurux.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Streamed responses hold their thread for the whole reading of the meter, so they are run
+ * on session threads of the configured {@link ExecutionMode} instead of the small default pool.
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    private final ExecutorService streamExecutor;
+
+    public AsyncRequestConfig(@Value("${gurux.execution.mode:platform}") ExecutionMode mode,
+                              @Value("${gurux.stream.threads:64}") int threads) {
+        this.streamExecutor = SessionThreads.executor(mode, "read-stream-", threads);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(streamExecutor));
+    }
+
+    @PreDestroy
+    public void close() {
+        streamExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package pl.meters.gurux.execution;
+
+/**
+ * Threads used to run meter sessions.
+ */
+public enum ExecutionMode {
+    /**
+     * Pooled platform threads, one blocked OS thread per meter session.
+     */
+    PLATFORM,
+    /**
+     * Virtual thread per meter session, waiting for the reply does not hold OS thread with NIO transport only.
+     */
+    VIRTUAL
+}
@@ -0,0 +1,33 @@
+package pl.meters.gurux.execution;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates threads for meter sessions according to {@link ExecutionMode}.
+ */
+public final class SessionThreads {
+
+    private SessionThreads() {
+    }
+
+    public static ThreadFactory factory(ExecutionMode mode, String prefix) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            return Thread.ofVirtual().name(prefix, 0).factory();
+        }
+        return new CustomizableThreadFactory(prefix);
+    }
+
+    /**
+     * Executor running every task on its own thread (virtual mode) or on fixed pool of {@code poolSize} threads.
+     */
+    public static ExecutorService executor(ExecutionMode mode, String prefix, int poolSize) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(factory(mode, prefix));
+        }
+        return Executors.newFixedThreadPool(poolSize, factory(mode, prefix));
+    }
+}
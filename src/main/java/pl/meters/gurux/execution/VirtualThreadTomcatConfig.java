@@ -0,0 +1,23 @@
+package pl.meters.gurux.execution;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * In virtual mode HTTP requests are handled on virtual threads too, so synchronous {@code /read}
+ * does not hold Tomcat worker while waiting for the meter.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gurux.execution.mode", havingValue = "virtual")
+public class VirtualThreadTomcatConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(SessionThreads.factory(ExecutionMode.VIRTUAL, "http-")));
+    }
+}
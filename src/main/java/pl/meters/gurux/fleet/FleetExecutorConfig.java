@@ -0,0 +1,19 @@
+package pl.meters.gurux.fleet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.meters.gurux.execution.ExecutionMode;
+import pl.meters.gurux.execution.SessionThreads;
+
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class FleetExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService fleetExecutor(@Value("${gurux.execution.mode:platform}") ExecutionMode mode,
+                                         @Value("${gurux.fleet.threads:64}") int threads) {
+        return SessionThreads.executor(mode, "fleet-read-", threads);
+    }
+}
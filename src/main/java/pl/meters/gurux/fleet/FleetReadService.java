@@ -0,0 +1,103 @@
+package pl.meters.gurux.fleet;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.meters.gurux.MeterService;
+import pl.meters.gurux.ReadIncompleteException;
+import pl.meters.gurux.ReadProgressListener;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.dto.MeterReadResult;
+import pl.meters.gurux.dto.ReadStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Reads many meters at once. Meters are grouped by gateway (host and port) and every gateway
+ * is served by at most {@code maxSessionsPerGateway} sessions, so sweep time depends on the
+ * number of gateways and not on the number of meters. Meters behind gateway with open circuit
+ * ({@link GatewayCircuitBreaker}) are skipped without connecting.
+ */
+@Service
+@Slf4j
+public class FleetReadService {
+
+    private final MeterService meterService;
+    private final ExecutorService fleetExecutor;
+    private final int maxSessionsPerGateway;
+
+    public FleetReadService(MeterService meterService,
+                            @Qualifier("fleetExecutor") ExecutorService fleetExecutor,
+                            @Value("${gurux.fleet.max-sessions-per-gateway:1}") int maxSessionsPerGateway) {
+        this.meterService = meterService;
+        this.fleetExecutor = fleetExecutor;
+        this.maxSessionsPerGateway = Math.max(1, maxSessionsPerGateway);
+    }
+
+    public List<MeterReadResult> readMeters(List<MeterParams> meters) {
+        LocalDateTime sweepStart = LocalDateTime.now();
+        MeterReadResult[] results = new MeterReadResult[meters.size()];
+        Map<GatewayKey, Queue<Integer>> gateways = new LinkedHashMap<>();
+        for (int i = 0; i < meters.size(); i++) {
+            gateways.computeIfAbsent(GatewayKey.of(meters.get(i)), k -> new ConcurrentLinkedQueue<>()).add(i);
+        }
+        log.info("start reading {} meters behind {} gateways", meters.size(), gateways.size());
+
+        List<CompletableFuture<Void>> sessions = new ArrayList<>();
+        for (Queue<Integer> gatewayQueue : gateways.values()) {
+            int sessionCount = Math.min(maxSessionsPerGateway, gatewayQueue.size());
+            for (int s = 0; s < sessionCount; s++) {
+                sessions.add(CompletableFuture.runAsync(() -> drain(gatewayQueue, meters, results), fleetExecutor));
+            }
+        }
+        CompletableFuture.allOf(sessions.toArray(new CompletableFuture[0])).join();
+
+        log.info("time reading {} meters in sec: {}", meters.size(), Duration.between(sweepStart, LocalDateTime.now()).getSeconds());
+        return Arrays.asList(results);
+    }
+
+    private void drain(Queue<Integer> gatewayQueue, List<MeterParams> meters, MeterReadResult[] results) {
+        Integer index;
+        while ((index = gatewayQueue.poll()) != null) {
+            results[index] = readOne(meters.get(index));
+        }
+    }
+
+    private MeterReadResult readOne(MeterParams meterParams) {
+        long start = System.currentTimeMillis();
+        MeterReadResult result = MeterReadResult.builder()
+                .hostName(meterParams.getHostName())
+                .port(meterParams.getPort())
+                .physicalAddress(meterParams.getPhysicalAddress())
+                .build();
+        List<Object[]> readings = new ArrayList<>();
+        try {
+            meterService.readMeterOrFail(meterParams, ReadProgressListener.NONE, readings::addAll);
+            result.setReadings(readings);
+            result.setStatus(ReadStatus.OK);
+        } catch (ReadIncompleteException e) {
+            log.info("reading of meter {} : {} incomplete: {}", meterParams.getHostName(), meterParams.getPort(), e.getMessage());
+            result.setReadings(readings);
+            result.setStatus(ReadStatus.INCOMPLETE);
+            result.setError(e.getMessage());
+        } catch (GatewayUnavailableException e) {
+            result.setReadings(new ArrayList<>());
+            result.setStatus(ReadStatus.SKIPPED);
+            result.setError(e.getMessage());
+        } catch (Exception e) {
+            log.info("problem with reading  meter {} : {} ", meterParams.getHostName(), meterParams.getPort());
+            log.info(e.getMessage());
+            result.setReadings(new ArrayList<>());
+            result.setStatus(ReadStatus.FAILED);
+            result.setError(e.getMessage());
+        }
+        result.setReadingTimeMs(System.currentTimeMillis() - start);
+        return result;
+    }
+}
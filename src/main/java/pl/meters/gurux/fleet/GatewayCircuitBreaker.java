@@ -0,0 +1,132 @@
+package pl.meters.gurux.fleet;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker per gateway (host and port). After {@code failureThreshold} consecutive failed connections
+ * the gateway is open: sessions with its meters fail at once with {@link GatewayUnavailableException} for
+ * {@code openSeconds}, then one session is let through and its result closes or opens the circuit again.
+ * Trial session which ends without result (e.g. it was not let through by the gateway queue) must be released,
+ * so another session can try.
+ */
+@Component
+@Slf4j
+public class GatewayCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Map<GatewayKey, State> states = new ConcurrentHashMap<>();
+    private final Counter rejected;
+
+    public GatewayCircuitBreaker(MeterRegistry registry,
+                                 @Value("${gurux.breaker.failure-threshold:5}") int failureThreshold,
+                                 @Value("${gurux.breaker.open-seconds:60}") long openSeconds) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+        this.rejected = Counter.builder("dlms.gateway.rejected")
+                .description("sessions not started because gateway circuit is open")
+                .register(registry);
+        Gauge.builder("dlms.gateway.open", states, GatewayCircuitBreaker::openCount).register(registry);
+    }
+
+    /**
+     * @return true if the session is the trial of half-open circuit, it must be {@link #release(GatewayKey) released}.
+     * @throws GatewayUnavailableException if the circuit of the gateway is open.
+     */
+    public boolean acquire(GatewayKey gateway) {
+        State state = states.get(gateway);
+        if (state == null) {
+            return false;
+        }
+        Boolean trial = state.tryAcquire(System.nanoTime());
+        if (trial == null) {
+            rejected.increment();
+            throw new GatewayUnavailableException("gateway " + gateway + " is unavailable, circuit open");
+        }
+        return trial;
+    }
+
+    /**
+     * Ends the trial session of the current thread, when it did not report success or failure another
+     * session is let through.
+     */
+    public void release(GatewayKey gateway) {
+        State state = states.get(gateway);
+        if (state != null) {
+            state.release();
+        }
+    }
+
+    public void success(GatewayKey gateway) {
+        State state = states.remove(gateway);
+        if (state != null && state.isOpen()) {
+            log.info("gateway {} is available again", gateway);
+        }
+    }
+
+    public void failure(GatewayKey gateway) {
+        if (states.computeIfAbsent(gateway, it -> new State()).failure(System.nanoTime())) {
+            log.info("gateway {} failed {} times, circuit open for {} s", gateway, failureThreshold,
+                    TimeUnit.NANOSECONDS.toSeconds(openNanos));
+        }
+    }
+
+    private static double openCount(Map<GatewayKey, State> states) {
+        return states.values().stream().filter(State::isOpen).count();
+    }
+
+    private class State {
+        private int failures;
+        private long openedAt;
+        /**
+         * Thread of the session let through half-open circuit.
+         */
+        private Thread trial;
+
+        /**
+         * @return null if the session is rejected, true if it is the trial.
+         */
+        synchronized Boolean tryAcquire(long now) {
+            if (failures < failureThreshold) {
+                return false;
+            }
+            if (now - openedAt < openNanos || trial != null) {
+                return null;
+            }
+            trial = Thread.currentThread();
+            return true;
+        }
+
+        synchronized void release() {
+            if (trial == Thread.currentThread()) {
+                trial = null;
+            }
+        }
+
+        /**
+         * @return true if the circuit was opened.
+         */
+        synchronized boolean failure(long now) {
+            failures++;
+            trial = null;
+            if (failures >= failureThreshold) {
+                openedAt = now;
+                return failures == failureThreshold;
+            }
+            return false;
+        }
+
+        synchronized boolean isOpen() {
+            return failures >= failureThreshold;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package pl.meters.gurux.fleet;
+
+import gurux.common.ReceiveParameters;
+import gurux.dlms.GXByteBuffer;
+import gurux.dlms.enums.InterfaceType;
+import lombok.extern.slf4j.Slf4j;
+import pl.meters.gurux.transport.DlmsTransport;
+
+import java.util.function.Function;
+
+/**
+ * TCP connection to the gateway shared by HDLC sessions of meters behind it, sessions use it one at a time
+ * ({@link GatewayQueue}). Closing the session transport ends only the HDLC session, TCP connection stays open
+ * until it is idle for too long or a session leaves the line in unknown state. When a session needs other framing (HDLC or WRAPPER)
+ * than the current connection, the connection is closed and opened again with framing of the session.
+ */
+@Slf4j
+class GatewayConnection {
+
+    private final GatewayKey gateway;
+    private final Function<InterfaceType, DlmsTransport> transports;
+    private final GatewayQueue queue = new GatewayQueue();
+    private volatile InterfaceType framing;
+    private volatile DlmsTransport transport;
+    private volatile long lastUsed = System.nanoTime();
+    /**
+     * Bytes of the reply to the last request were received.
+     */
+    private volatile boolean replied;
+    /**
+     * Send or receive failed, or reply stopped in the middle: next session could read what is left of it.
+     */
+    private volatile boolean lineUnknown;
+
+    GatewayConnection(GatewayKey gateway, Function<InterfaceType, DlmsTransport> transports) {
+        this.gateway = gateway;
+        this.transports = transports;
+    }
+
+    GatewayQueue queue() {
+        return queue;
+    }
+
+    /**
+     * Transport of one HDLC session, must be called in the turn of the session.
+     */
+    DlmsTransport session(InterfaceType sessionFraming) {
+        if (sessionFraming != framing) {
+            if (transport != null) {
+                disconnect("framing " + sessionFraming);
+            }
+            transport = transports.apply(sessionFraming);
+            framing = sessionFraming;
+        }
+        DlmsTransport transport = this.transport;
+        return new DlmsTransport() {
+            @Override
+            public void open() throws Exception {
+                if (!transport.isOpen()) {
+                    log.info("open connection to gateway {}", gateway);
+                    lineUnknown = false;
+                    transport.open();
+                }
+            }
+
+            @Override
+            public boolean isOpen() {
+                return transport.isOpen();
+            }
+
+            @Override
+            public void close() {
+                lastUsed = System.nanoTime();
+            }
+
+            @Override
+            public void send(byte[] data) throws Exception {
+                replied = false;
+                try {
+                    transport.send(data);
+                } catch (Exception e) {
+                    lineUnknown = true;
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean receive(ReceiveParameters<byte[]> p) throws Exception {
+                try {
+                    return received(transport.receive(p));
+                } catch (Exception e) {
+                    lineUnknown = true;
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean receive(ReceiveParameters<byte[]> p, GXByteBuffer target) throws Exception {
+                try {
+                    return received(transport.receive(p, target));
+                } catch (Exception e) {
+                    lineUnknown = true;
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean isNetwork() {
+                return transport.isNetwork();
+            }
+        };
+    }
+
+    /**
+     * Timeout without any reply leaves the line clean, timeout after part of the reply does not.
+     */
+    private boolean received(boolean received) {
+        if (received) {
+            replied = true;
+        } else if (replied) {
+            lineUnknown = true;
+        }
+        return received;
+    }
+
+    /**
+     * True when the last session failed on the transport or in the middle of a reply.
+     */
+    boolean isLineUnknown() {
+        return lineUnknown;
+    }
+
+    long idleNanos(long now) {
+        return now - lastUsed;
+    }
+
+    /**
+     * Closes TCP connection, next session opens it again.
+     */
+    void disconnect(String reason) {
+        DlmsTransport transport = this.transport;
+        if (transport != null && transport.isOpen()) {
+            log.info("close connection to gateway {} ({})", gateway, reason);
+            try {
+                transport.close();
+            } catch (Exception e) {
+                log.info("problem with closing connection to gateway {}: {}", gateway, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package pl.meters.gurux.fleet;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import pl.meters.gurux.dto.MeterParams;
+
+/**
+ * Identifies TCP endpoint (meter or concentrator) shared by meters.
+ */
+@Getter
+@EqualsAndHashCode
+public class GatewayKey {
+    private final String hostName;
+    private final Short port;
+
+    public GatewayKey(String hostName, Short port) {
+        this.hostName = hostName;
+        this.port = port;
+    }
+
+    public static GatewayKey of(MeterParams meterParams) {
+        return new GatewayKey(meterParams.getHostName(), meterParams.getPort());
+    }
+
+    @Override
+    public String toString() {
+        return hostName + ":" + port;
+    }
+}
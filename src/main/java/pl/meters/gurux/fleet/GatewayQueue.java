@@ -0,0 +1,147 @@
+package pl.meters.gurux.fleet;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets one session at a time use the gateway. Waiting sessions with higher priority go first, sessions with
+ * the same priority take turns by meter (round robin), so many reads queued for one meter do not hold back
+ * other meters on the bus.
+ */
+class GatewayQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<Integer, LinkedHashMap<String, Deque<Waiter>>> levels = new TreeMap<>(Comparator.reverseOrder());
+    private boolean busy;
+    private int waiting;
+
+    /**
+     * Waits for the turn at most {@code timeoutNanos}. Turn granted to the session interrupted while
+     * waiting is passed to the next session.
+     *
+     * @return false if the turn did not come in time.
+     */
+    boolean acquire(int priority, String meter, long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (!busy && waiting == 0) {
+                busy = true;
+                return true;
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            levels.computeIfAbsent(priority, it -> new LinkedHashMap<>())
+                    .computeIfAbsent(meter, it -> new ArrayDeque<>())
+                    .addLast(waiter);
+            waiting++;
+            long remaining = timeoutNanos;
+            boolean interrupted = true;
+            try {
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+                interrupted = false;
+            } finally {
+                if (!waiter.granted) {
+                    remove(priority, meter, waiter);
+                } else if (interrupted) {
+                    release();
+                }
+            }
+            return waiter.granted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the turn only if the gateway is free and nobody waits.
+     */
+    boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (busy || waiting != 0) {
+                return false;
+            }
+            busy = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the turn, next waiting session gets it.
+     */
+    void release() {
+        lock.lock();
+        try {
+            Waiter next = next();
+            if (next == null) {
+                busy = false;
+            } else {
+                next.granted = true;
+                next.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Waiter next() {
+        if (levels.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Integer, LinkedHashMap<String, Deque<Waiter>>> level = levels.firstEntry();
+        Iterator<Map.Entry<String, Deque<Waiter>>> meters = level.getValue().entrySet().iterator();
+        Map.Entry<String, Deque<Waiter>> meter = meters.next();
+        Waiter waiter = meter.getValue().pollFirst();
+        meters.remove();
+        if (!meter.getValue().isEmpty()) {
+            // Meter goes to the end of its priority level.
+            level.getValue().put(meter.getKey(), meter.getValue());
+        }
+        if (level.getValue().isEmpty()) {
+            levels.pollFirstEntry();
+        }
+        waiting--;
+        return waiter;
+    }
+
+    private void remove(int priority, String meter, Waiter waiter) {
+        LinkedHashMap<String, Deque<Waiter>> level = levels.get(priority);
+        Deque<Waiter> waiters = level.get(meter);
+        waiters.remove(waiter);
+        waiting--;
+        if (waiters.isEmpty()) {
+            level.remove(meter);
+            if (level.isEmpty()) {
+                levels.remove(priority);
+            }
+        }
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
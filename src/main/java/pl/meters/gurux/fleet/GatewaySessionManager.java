@@ -0,0 +1,130 @@
+package pl.meters.gurux.fleet;
+
+import gurux.dlms.enums.InterfaceType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.transport.DlmsTransport;
+import pl.meters.gurux.transport.TransportFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one TCP connection per gateway (concentrator with meters addressed by physical address) and runs
+ * HDLC sessions of meters behind it one after another on that connection, instead of opening socket per
+ * reading. Sessions wait for their turn by priority of the reading and round robin between meters.
+ */
+@Component
+@Slf4j
+public class GatewaySessionManager {
+
+    private final boolean enabled;
+    private final long queueTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final TransportFactory transportFactory;
+    private final Map<GatewayKey, GatewayConnection> connections = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    public GatewaySessionManager(TransportFactory transportFactory, MeterRegistry registry,
+                                 @Value("${gurux.gateway.enabled:false}") boolean enabled,
+                                 @Value("${gurux.gateway.queue-timeout-seconds:600}") long queueTimeoutSeconds,
+                                 @Value("${gurux.gateway.idle-timeout-seconds:60}") long idleTimeoutSeconds) {
+        this.transportFactory = transportFactory;
+        this.enabled = enabled;
+        this.queueTimeoutNanos = TimeUnit.SECONDS.toNanos(queueTimeoutSeconds);
+        this.idleTimeoutNanos = TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+        Gauge.builder("dlms.gateway.queued", connections, GatewaySessionManager::queuedCount).register(registry);
+        if (enabled) {
+            evictor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("gateway-evictor-"));
+            long period = Math.max(1, idleTimeoutSeconds / 4);
+            evictor.scheduleWithFixedDelay(this::closeIdle, period, period, TimeUnit.SECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Waits until the gateway of the meter is free. When not enabled returns at once.
+     *
+     * @throws GatewayUnavailableException if the turn did not come in {@code queueTimeoutSeconds}.
+     */
+    public void acquire(MeterParams meterParams) throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        GatewayKey gateway = GatewayKey.of(meterParams);
+        int priority = meterParams.getPriority() != null ? meterParams.getPriority() : 0;
+        if (!connection(gateway).queue().acquire(priority, meterParams.meterIdentity(), queueTimeoutNanos)) {
+            throw new GatewayUnavailableException("gateway " + gateway + " is busy, reading was not started in time");
+        }
+    }
+
+    /**
+     * Ends the session of the meter. Connection is closed when the session failed on the transport or in
+     * the middle of a reply, because it is not known what is left on the line. After a timeout without
+     * reply or a failure reported by the meter the connection is kept for the next meter.
+     */
+    public void release(MeterParams meterParams) {
+        if (!enabled) {
+            return;
+        }
+        GatewayConnection connection = connections.get(GatewayKey.of(meterParams));
+        if (connection.isLineUnknown()) {
+            connection.disconnect("line state unknown");
+        }
+        connection.queue().release();
+    }
+
+    /**
+     * Transport of the meter session on the shared gateway connection, with framing of the meter.
+     */
+    public DlmsTransport transport(MeterParams meterParams, InterfaceType framing) {
+        return connection(GatewayKey.of(meterParams)).session(framing);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (GatewayConnection connection : connections.values()) {
+            connection.disconnect("shutdown");
+        }
+    }
+
+    private GatewayConnection connection(GatewayKey gateway) {
+        return connections.computeIfAbsent(gateway, it -> new GatewayConnection(it, framing -> transportFactory.create(
+                MeterParams.builder().hostName(it.getHostName()).port(it.getPort()).build(), framing)));
+    }
+
+    void closeIdle() {
+        long now = System.nanoTime();
+        for (GatewayConnection connection : connections.values()) {
+            // Connection is closed only in its turn, so no session uses it meanwhile.
+            if (connection.idleNanos(now) >= idleTimeoutNanos && connection.queue().tryAcquire()) {
+                try {
+                    connection.disconnect("idle timeout");
+                } finally {
+                    connection.queue().release();
+                }
+            }
+        }
+    }
+
+    private static double queuedCount(Map<GatewayKey, GatewayConnection> connections) {
+        return connections.values().stream().mapToInt(it -> it.queue().waiting()).sum();
+    }
+}
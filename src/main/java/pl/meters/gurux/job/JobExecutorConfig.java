@@ -0,0 +1,29 @@
+package pl.meters.gurux.job;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.meters.gurux.execution.ExecutionMode;
+import pl.meters.gurux.execution.SessionThreads;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class JobExecutorConfig {
+
+    /**
+     * Bounded pool for background reads, new jobs are rejected when all workers are busy and queue is full.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService jobExecutor(@Value("${gurux.execution.mode:platform}") ExecutionMode mode,
+                                       @Value("${gurux.jobs.workers:16}") int workers,
+                                       @Value("${gurux.jobs.queue-depth:256}") int queueDepth) {
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                SessionThreads.factory(mode, "read-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,12 @@
+package pl.meters.gurux.job;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class JobNotReadyException extends RuntimeException {
+
+    public JobNotReadyException(ReadJob job) {
+        super("job " + job.getId() + " is " + job.getPhase());
+    }
+}
@@ -0,0 +1,59 @@
+package pl.meters.gurux.job;
+
+import lombok.Getter;
+import pl.meters.gurux.ReadPhase;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reading of one meter done in background.
+ */
+@Getter
+public class ReadJob {
+    private final String id;
+    private final MeterParams meterParams;
+    private final LocalDateTime submitted = LocalDateTime.now();
+    private volatile ReadPhase phase = ReadPhase.QUEUED;
+    private volatile LocalDateTime finished;
+    private volatile List<Object[]> readings;
+    private volatile String error;
+    private volatile boolean complete;
+
+    ReadJob(String id, MeterParams meterParams) {
+        this.id = id;
+        this.meterParams = meterParams;
+    }
+
+    void setPhase(ReadPhase phase) {
+        this.phase = phase;
+    }
+
+    void done(List<Object[]> readings) {
+        this.readings = readings;
+        this.complete = true;
+        this.finished = LocalDateTime.now();
+        this.phase = ReadPhase.DONE;
+    }
+
+    /**
+     * Reading failed after some rows were read, they are the result of the job.
+     */
+    void incomplete(List<Object[]> readings, String error) {
+        this.readings = readings;
+        this.error = error;
+        this.finished = LocalDateTime.now();
+        this.phase = ReadPhase.DONE;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.finished = LocalDateTime.now();
+        this.phase = ReadPhase.FAILED;
+    }
+
+    public boolean isFinished() {
+        return finished != null;
+    }
+}
@@ -0,0 +1,53 @@
+package pl.meters.gurux.job;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.meters.gurux.ReadPhase;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+public class ReadJobController {
+
+    private final ReadJobService readJobService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping
+    public ResponseEntity<ReadJobStatus> submit(@RequestBody MeterParams meterParams) {
+        ReadJob job = readJobService.submit(meterParams);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ReadJobStatus.of(job));
+    }
+
+    @GetMapping("/{jobId}")
+    public ReadJobStatus getStatus(@PathVariable String jobId) {
+        return ReadJobStatus.of(readJobService.getJob(jobId));
+    }
+
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<StreamingResponseBody> getResult(@PathVariable String jobId) {
+        ReadJob job = readJobService.getJob(jobId);
+        if (job.getPhase() != ReadPhase.DONE) {
+            throw new JobNotReadyException(job);
+        }
+        List<Object[]> readings = job.getReadings();
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                for (Object[] row : readings) {
+                    objectMapper.writeValue(generator, row);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,81 @@
+package pl.meters.gurux.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.meters.gurux.MeterService;
+import pl.meters.gurux.ReadIncompleteException;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs meter readings as background jobs, so long profile reads do not hold HTTP request open.
+ */
+@Service
+@Slf4j
+public class ReadJobService {
+
+    private final MeterService meterService;
+    private final ExecutorService jobExecutor;
+    private final long retentionMinutes;
+    private final Map<String, ReadJob> jobs = new ConcurrentHashMap<>();
+
+    public ReadJobService(MeterService meterService,
+                          @Qualifier("jobExecutor") ExecutorService jobExecutor,
+                          @Value("${gurux.jobs.retention-minutes:60}") long retentionMinutes) {
+        this.meterService = meterService;
+        this.jobExecutor = jobExecutor;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    public ReadJob submit(MeterParams meterParams) {
+        removeExpiredJobs();
+        ReadJob job = new ReadJob(UUID.randomUUID().toString(), meterParams);
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            log.info("job for meter {} : {} rejected, worker pool saturated", meterParams.getHostName(), meterParams.getPort());
+            throw new JobRejectedException("worker pool saturated, try again later");
+        }
+        return job;
+    }
+
+    public ReadJob getJob(String jobId) {
+        ReadJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    private void run(ReadJob job) {
+        List<Object[]> readings = new ArrayList<>();
+        try {
+            meterService.readMeterOrFail(job.getMeterParams(), job::setPhase, readings::addAll);
+            job.done(readings);
+        } catch (ReadIncompleteException e) {
+            log.info("reading of meter {} : {} in job {} incomplete: {}", job.getMeterParams().getHostName(), job.getMeterParams().getPort(), job.getId(), e.getMessage());
+            job.incomplete(readings, e.getMessage());
+        } catch (Exception e) {
+            log.info("problem with reading  meter {} : {} in job {}", job.getMeterParams().getHostName(), job.getMeterParams().getPort(), job.getId());
+            log.info(e.getMessage());
+            job.failed(e.getMessage());
+        }
+    }
+
+    private void removeExpiredJobs() {
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinished().isBefore(expired));
+    }
+}
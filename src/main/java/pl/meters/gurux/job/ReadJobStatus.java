@@ -0,0 +1,33 @@
+package pl.meters.gurux.job;
+
+import lombok.*;
+import pl.meters.gurux.ReadPhase;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadJobStatus {
+    private String jobId;
+    private ReadPhase phase;
+    private LocalDateTime submitted;
+    private LocalDateTime finished;
+    private Integer rowCount;
+    private String error;
+    private Boolean complete;
+
+    static ReadJobStatus of(ReadJob job) {
+        return ReadJobStatus.builder()
+                .jobId(job.getId())
+                .phase(job.getPhase())
+                .submitted(job.getSubmitted())
+                .finished(job.getFinished())
+                .rowCount(job.getReadings() != null ? job.getReadings().size() : null)
+                .error(job.getError())
+                .complete(job.isFinished() ? job.isComplete() : null)
+                .build();
+    }
+}
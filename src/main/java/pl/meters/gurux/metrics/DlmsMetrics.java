@@ -0,0 +1,29 @@
+package pl.meters.gurux.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session metrics tagged by meter producer and gateway (host and port of the meter).
+ */
+@Component
+public class DlmsMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<Tags, SessionMetrics> sessions = new ConcurrentHashMap<>();
+
+    public DlmsMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public SessionMetrics session(MeterParams meterParams) {
+        String producer = meterParams.getMeterProducer() != null ? meterParams.getMeterProducer().toLowerCase() : "unknown";
+        Tags tags = Tags.of("producer", producer, "gateway", meterParams.getHostName() + ":" + meterParams.getPort());
+        return sessions.computeIfAbsent(tags, it -> new SessionMetrics(registry, it));
+    }
+}
@@ -0,0 +1,110 @@
+package pl.meters.gurux.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of sessions with one meter producer and gateway, shared by all sessions with the same tags.
+ */
+public class SessionMetrics {
+
+    /**
+     * Records nothing, registry without backing registries is no-op.
+     */
+    public static final SessionMetrics NONE = new SessionMetrics(new CompositeMeterRegistry(), Tags.empty());
+
+    private final Map<SessionPhase, Timer> phases = new EnumMap<>(SessionPhase.class);
+    private final Counter framesSent;
+    private final Counter framesReceived;
+    private final Counter bytesSent;
+    private final Counter bytesReceived;
+    private final Counter retries;
+    private final Counter rejected;
+    private final Counter associationFailures;
+    private final DistributionSummary rows;
+    private final Counter reconstructed;
+    private final Counter missing;
+    private final Counter duplicates;
+    private final Counter clockJumps;
+
+    SessionMetrics(MeterRegistry registry, Tags tags) {
+        for (SessionPhase phase : SessionPhase.values()) {
+            phases.put(phase, Timer.builder("dlms.session.phase")
+                    .tags(tags).tag("phase", phase.tag())
+                    .register(registry));
+        }
+        framesSent = Counter.builder("dlms.frames").tags(tags).tag("direction", "sent").register(registry);
+        framesReceived = Counter.builder("dlms.frames").tags(tags).tag("direction", "received").register(registry);
+        bytesSent = Counter.builder("dlms.bytes").baseUnit("bytes").tags(tags).tag("direction", "sent").register(registry);
+        bytesReceived = Counter.builder("dlms.bytes").baseUnit("bytes").tags(tags).tag("direction", "received").register(registry);
+        retries = Counter.builder("dlms.retries")
+                .description("requests sent again because reply did not come in time")
+                .tags(tags).register(registry);
+        rejected = Counter.builder("dlms.rejected")
+                .description("back-offs after REJECTED reply")
+                .tags(tags).register(registry);
+        associationFailures = Counter.builder("dlms.association.failures")
+                .description("connections to the gateway opened, but meter did not accept SNRM or AARQ")
+                .tags(tags).register(registry);
+        rows = DistributionSummary.builder("dlms.read.rows").tags(tags).register(registry);
+        reconstructed = Counter.builder("dlms.read.intervals").tags(tags).tag("kind", "reconstructed").register(registry);
+        missing = Counter.builder("dlms.read.intervals").tags(tags).tag("kind", "missing").register(registry);
+        duplicates = Counter.builder("dlms.read.intervals").tags(tags).tag("kind", "duplicate").register(registry);
+        clockJumps = Counter.builder("dlms.read.intervals").tags(tags).tag("kind", "clock_jump").register(registry);
+    }
+
+    /**
+     * Records time of the phase started at {@code startNanos} ({@link System#nanoTime()}).
+     */
+    public void record(SessionPhase phase, long startNanos) {
+        recordNanos(phase, System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(SessionPhase phase, long nanos) {
+        phases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void frameSent(int bytes) {
+        framesSent.increment();
+        bytesSent.increment(bytes);
+    }
+
+    public void frameReceived(int bytes) {
+        framesReceived.increment();
+        bytesReceived.increment(bytes);
+    }
+
+    public void retry() {
+        retries.increment();
+    }
+
+    public void rejected() {
+        rejected.increment();
+    }
+
+    public void associationFailed() {
+        associationFailures.increment();
+    }
+
+    public void rows(long count) {
+        rows.record(count);
+    }
+
+    /**
+     * Rows checked against capture period: times reconstructed, intervals missing, duplicates and clock jumps.
+     */
+    public void intervals(long reconstructedRows, long missingIntervals, long duplicateRows, long clockJumpRows) {
+        reconstructed.increment(reconstructedRows);
+        missing.increment(missingIntervals);
+        duplicates.increment(duplicateRows);
+        clockJumps.increment(clockJumpRows);
+    }
+}
@@ -0,0 +1,33 @@
+package pl.meters.gurux.metrics;
+
+/**
+ * Timed phases of DLMS session, value of {@code phase} tag of {@code dlms.session.phase} timer.
+ */
+public enum SessionPhase {
+    /**
+     * Opening TCP connection.
+     */
+    CONNECT,
+    SNRM,
+    /**
+     * AARQ/AARE and HLS authentication.
+     */
+    AARQ,
+    /**
+     * Reading capture objects from the meter (not taken from cache).
+     */
+    CAPTURE_OBJECTS,
+    /**
+     * Reading buffer, without converting of rows.
+     */
+    BUFFER,
+    CONVERT,
+    /**
+     * Release and disconnect.
+     */
+    RELEASE;
+
+    String tag() {
+        return name().toLowerCase();
+    }
+}
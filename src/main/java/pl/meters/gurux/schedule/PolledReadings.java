@@ -0,0 +1,14 @@
+package pl.meters.gurux.schedule;
+
+import pl.meters.gurux.dto.MeterParams;
+
+import java.util.List;
+
+/**
+ * Receives rows read by {@link PollingScheduler}, block by block as they are read from the meter.
+ */
+@FunctionalInterface
+public interface PolledReadings {
+
+    void accept(MeterParams meterParams, List<Object[]> rows) throws Exception;
+}
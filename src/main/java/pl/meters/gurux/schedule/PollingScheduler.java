@@ -0,0 +1,271 @@
+package pl.meters.gurux.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.MeterService;
+import pl.meters.gurux.ReadIncompleteException;
+import pl.meters.gurux.ReadProgressListener;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.dto.ReadStatus;
+import pl.meters.gurux.fleet.GatewayKey;
+import pl.meters.gurux.fleet.GatewayUnavailableException;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls registered meters every {@code intervalMinutes}. Polls are spread over the interval: offset of the meter
+ * is a hash of its id, so it does not change when other meters are registered, and all meters are kept in one
+ * {@link TimingWheel} advanced by a single thread every {@code tickMillis}, instead of a timer per meter.
+ * The last {@code slackPercent} of the interval is left for retries of failed meters and for meters deferred
+ * because their gateway already had {@code maxSessionsPerGateway} sessions.
+ */
+@Component
+@Slf4j
+public class PollingScheduler {
+
+    private final MeterService meterService;
+    private final ExecutorService fleetExecutor;
+    private final ObjectProvider<PolledReadings> readings;
+    private final long intervalMillis;
+    private final long tickMillis;
+    private final int activeSlots;
+    private final int maxRetries;
+    private final int maxSessionsPerGateway;
+    private final TimingWheel wheel;
+    private final Map<String, ScheduledMeter> meters = new ConcurrentHashMap<>();
+    private final Map<GatewayKey, AtomicInteger> gatewaySessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+    private long windowStart = -1;
+    private int nextSlot;
+
+    public PollingScheduler(MeterService meterService,
+                            @Qualifier("fleetExecutor") ExecutorService fleetExecutor,
+                            ObjectProvider<PolledReadings> readings,
+                            @Value("${gurux.schedule.enabled:false}") boolean enabled,
+                            @Value("${gurux.schedule.interval-minutes:15}") long intervalMinutes,
+                            @Value("${gurux.schedule.tick-millis:1000}") long tickMillis,
+                            @Value("${gurux.schedule.slack-percent:20}") int slackPercent,
+                            @Value("${gurux.schedule.max-retries:2}") int maxRetries,
+                            @Value("${gurux.schedule.max-sessions-per-gateway:1}") int maxSessionsPerGateway) {
+        this.meterService = meterService;
+        this.fleetExecutor = fleetExecutor;
+        this.readings = readings;
+        this.intervalMillis = TimeUnit.MINUTES.toMillis(intervalMinutes);
+        this.tickMillis = tickMillis;
+        this.maxRetries = maxRetries;
+        this.maxSessionsPerGateway = Math.max(1, maxSessionsPerGateway);
+        int slotCount = (int) (intervalMillis / tickMillis);
+        this.wheel = new TimingWheel(slotCount);
+        this.activeSlots = Math.max(1, slotCount * (100 - slackPercent) / 100);
+        if (enabled) {
+            ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("poll-scheduler-"));
+            ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+            log.info("polling every {} min in {} slots, {} for retries", intervalMinutes, slotCount, slotCount - activeSlots);
+        } else {
+            ticker = null;
+        }
+    }
+
+    /**
+     * Registers the meter or replaces its parameters, meter is identified by {@link MeterParams#meterIdentity()}.
+     */
+    public synchronized void register(MeterParams template) {
+        String meterId = template.meterIdentity();
+        ScheduledMeter meter = new ScheduledMeter(meterId, template, (int) Long.remainderUnsigned(hash(meterId), activeSlots));
+        ScheduledMeter previous = meters.put(meterId, meter);
+        if (previous != null) {
+            wheel.remove(previous);
+        }
+        wheel.add(meter);
+    }
+
+    /**
+     * @return false if the meter was not registered.
+     */
+    public synchronized boolean unregister(String meterId) {
+        ScheduledMeter meter = meters.remove(meterId);
+        if (meter == null) {
+            return false;
+        }
+        wheel.remove(meter);
+        return true;
+    }
+
+    public List<ScheduledMeterStatus> status() {
+        List<ScheduledMeterStatus> res = new ArrayList<>(meters.size());
+        for (ScheduledMeter it : meters.values()) {
+            res.add(ScheduledMeterStatus.builder()
+                    .meterId(it.getMeterId())
+                    .offsetSeconds(it.getSlot() * tickMillis / 1000)
+                    .lastStart(it.getLastStart())
+                    .lastStatus(it.getLastStatus())
+                    .lastError(it.getLastError())
+                    .lastRowCount(it.getLastRowCount())
+                    .build());
+        }
+        return res;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Polls meters of slots passed since the last tick. Slots left from the previous interval (ticker was late)
+     * are polled first.
+     */
+    synchronized void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            long window = now - now % intervalMillis;
+            if (window != windowStart) {
+                if (windowStart >= 0) {
+                    advance(wheel.size() - 1);
+                }
+                windowStart = window;
+                nextSlot = 0;
+                wheel.clearOnce();
+            }
+            advance((int) Math.min(wheel.size() - 1, (now - window) / tickMillis));
+        } catch (RuntimeException e) {
+            // Exception would cancel the ticker.
+            log.error("polling tick failed", e);
+        }
+    }
+
+    private void advance(int slot) {
+        while (nextSlot <= slot) {
+            for (ScheduledMeter meter : wheel.take(nextSlot)) {
+                poll(meter, nextSlot);
+            }
+            nextSlot++;
+        }
+    }
+
+    private void poll(ScheduledMeter meter, int slot) {
+        GatewayKey gateway = GatewayKey.of(meter.getTemplate());
+        AtomicInteger sessions = gatewaySessions.computeIfAbsent(gateway, it -> new AtomicInteger());
+        if (sessions.incrementAndGet() > maxSessionsPerGateway) {
+            sessions.decrementAndGet();
+            defer(meter, slot + 1, "gateway " + gateway + " busy");
+            return;
+        }
+        if (!meter.start(windowStart)) {
+            sessions.decrementAndGet();
+            meter.skipped("previous poll still running");
+            return;
+        }
+        MeterParams meterParams = pollParams(meter.getTemplate(), windowStart);
+        long window = windowStart;
+        try {
+            fleetExecutor.execute(() -> {
+                try {
+                    read(meter, meterParams, window);
+                } finally {
+                    sessions.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sessions.decrementAndGet();
+            meter.finish(ReadStatus.SKIPPED, "executor rejected poll", 0);
+        }
+    }
+
+    private void read(ScheduledMeter meter, MeterParams meterParams, long window) {
+        long[] rowCount = new long[1];
+        ReadStatus status = ReadStatus.OK;
+        String error = null;
+        try {
+            meterService.readMeterOrFail(meterParams, ReadProgressListener.NONE, rows -> {
+                rowCount[0] += rows.size();
+                for (PolledReadings it : readings) {
+                    it.accept(meterParams, rows);
+                }
+            });
+        } catch (ReadIncompleteException e) {
+            status = ReadStatus.INCOMPLETE;
+            error = e.getMessage();
+        } catch (GatewayUnavailableException e) {
+            status = ReadStatus.SKIPPED;
+            error = e.getMessage();
+        } catch (Exception e) {
+            status = ReadStatus.FAILED;
+            error = e.getMessage();
+        }
+        int retries = meter.finish(status, error, rowCount[0]);
+        if (status == ReadStatus.OK) {
+            return;
+        }
+        if (retries <= maxRetries) {
+            log.info("poll of meter {} failed, retry {} of {}: {}", meter.getMeterId(), retries, maxRetries, error);
+            retry(meter, window);
+        } else {
+            log.info("poll of meter {} failed, no retries left: {}", meter.getMeterId(), error);
+        }
+    }
+
+    /**
+     * Schedules the meter again in the slack at the end of the interval, spread by its offset.
+     */
+    private synchronized void retry(ScheduledMeter meter, long window) {
+        if (window != windowStart || meters.get(meter.getMeterId()) != meter) {
+            return;
+        }
+        int slackSlots = wheel.size() - activeSlots;
+        int slot = slackSlots > 0 ? activeSlots + meter.getSlot() % slackSlots : wheel.size() - 1;
+        defer(meter, Math.max(slot, nextSlot + 1), "no slot left for retry");
+    }
+
+    private void defer(ScheduledMeter meter, int slot, String reason) {
+        if (slot >= wheel.size()) {
+            log.info("meter {} not polled in this interval: {}", meter.getMeterId(), reason);
+            meter.skipped(reason);
+            return;
+        }
+        wheel.addOnce(slot, meter);
+    }
+
+    /**
+     * Parameters of the poll ending at the start of the interval. Incremental meters are read from their high
+     * water mark, {@code from} of the template is used only for the first reading.
+     */
+    private MeterParams pollParams(MeterParams template, long window) {
+        LocalDateTime to = LocalDateTime.ofInstant(Instant.ofEpochMilli(window), ZoneId.systemDefault());
+        LocalDateTime from = Boolean.TRUE.equals(template.getIncremental()) && template.getFrom() != null
+                ? template.getFrom() : to.minusNanos(TimeUnit.MILLISECONDS.toNanos(intervalMillis));
+        return template.toBuilder().from(from).to(to).build();
+    }
+
+    /**
+     * FNV-1a, stable between restarts unlike identity hash codes.
+     */
+    static long hash(String meterId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : meterId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
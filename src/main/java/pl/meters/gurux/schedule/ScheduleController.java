@@ -0,0 +1,40 @@
+package pl.meters.gurux.schedule;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/schedule/meters")
+@RequiredArgsConstructor
+public class ScheduleController {
+
+    private final PollingScheduler pollingScheduler;
+
+    /**
+     * Registers meters for polling, parameters of already registered meters are replaced.
+     */
+    @PutMapping
+    public ResponseEntity<Void> register(@RequestBody List<MeterParams> meters) {
+        for (MeterParams it : meters) {
+            pollingScheduler.register(it);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    public List<ScheduledMeterStatus> getMeters() {
+        return pollingScheduler.status();
+    }
+
+    /**
+     * Meter id is given as parameter, identity of meter without {@code meterId} contains {@code /}.
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> unregister(@RequestParam String meterId) {
+        return pollingScheduler.unregister(meterId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,61 @@
+package pl.meters.gurux.schedule;
+
+import lombok.Getter;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.dto.ReadStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registered meter with its slot in the polling interval and result of the last poll.
+ */
+@Getter
+class ScheduledMeter {
+    private final String meterId;
+    private final MeterParams template;
+    private final int slot;
+    private boolean running;
+    private long window = -1;
+    private int retries;
+    private volatile LocalDateTime lastStart;
+    private volatile ReadStatus lastStatus;
+    private volatile String lastError;
+    private volatile long lastRowCount;
+
+    ScheduledMeter(String meterId, MeterParams template, int slot) {
+        this.meterId = meterId;
+        this.template = template;
+        this.slot = slot;
+    }
+
+    /**
+     * Marks the meter running in the interval, retries are counted per interval.
+     *
+     * @return false if previous poll still runs.
+     */
+    synchronized boolean start(long window) {
+        if (running) {
+            return false;
+        }
+        if (this.window != window) {
+            this.window = window;
+            retries = 0;
+        }
+        running = true;
+        lastStart = LocalDateTime.now();
+        return true;
+    }
+
+    synchronized int finish(ReadStatus status, String error, long rowCount) {
+        running = false;
+        lastStatus = status;
+        lastError = error;
+        lastRowCount = rowCount;
+        return status == ReadStatus.OK ? retries : ++retries;
+    }
+
+    void skipped(String error) {
+        lastStatus = ReadStatus.SKIPPED;
+        lastError = error;
+    }
+}
@@ -0,0 +1,20 @@
+package pl.meters.gurux.schedule;
+
+import lombok.*;
+import pl.meters.gurux.dto.ReadStatus;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledMeterStatus {
+    private String meterId;
+    private long offsetSeconds;
+    private LocalDateTime lastStart;
+    private ReadStatus lastStatus;
+    private String lastError;
+    private long lastRowCount;
+}
@@ -0,0 +1,55 @@
+package pl.meters.gurux.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Slots of one polling interval. Meters stay in the slot of their offset for every interval, meters deferred
+ * or retried in the current interval are added to a slot once.
+ */
+class TimingWheel {
+
+    private final List<List<ScheduledMeter>> periodic;
+    private final List<List<ScheduledMeter>> once;
+
+    TimingWheel(int slotCount) {
+        periodic = new ArrayList<>(slotCount);
+        once = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            periodic.add(new ArrayList<>());
+            once.add(new ArrayList<>());
+        }
+    }
+
+    int size() {
+        return periodic.size();
+    }
+
+    void add(ScheduledMeter meter) {
+        periodic.get(meter.getSlot()).add(meter);
+    }
+
+    void remove(ScheduledMeter meter) {
+        periodic.get(meter.getSlot()).remove(meter);
+    }
+
+    void addOnce(int slot, ScheduledMeter meter) {
+        once.get(slot).add(meter);
+    }
+
+    /**
+     * Meters to poll in the slot, meters added once are removed from it.
+     */
+    List<ScheduledMeter> take(int slot) {
+        List<ScheduledMeter> res = new ArrayList<>(periodic.get(slot));
+        res.addAll(once.get(slot));
+        once.get(slot).clear();
+        return res;
+    }
+
+    void clearOnce() {
+        for (List<ScheduledMeter> it : once) {
+            it.clear();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package pl.meters.gurux.store;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only memory-mapped file of (epoch second, value) points of one column and one day, compressed like
+ * Gorilla: timestamps as delta of delta, values XORed with the previous value. Header holds number of points and
+ * length of the bit stream, it is written after the point, so point written only partially is not visible.
+ * Points are in time order unless they are {@link #insert(long, double) inserted}, negative delta is encoded
+ * like any other.
+ */
+final class GorillaSegment {
+
+    private static final int MAGIC = 0x474f5231;
+    private static final int HEADER = 16;
+    private static final int INITIAL_CAPACITY = 4096;
+    /**
+     * {@code Unsafe.invokeCleaner}, null when not available, then mappings are released by GC.
+     */
+    private static final MethodHandle UNMAP = unmapHandle();
+
+    @FunctionalInterface
+    interface PointConsumer {
+        void accept(long time, double value);
+    }
+
+    private final Path file;
+    private MappedByteBuffer buffer;
+    private int count;
+    private long bitLength;
+    private long lastTime;
+    private long lastDelta;
+    private long lastValue;
+    private int lastLeading = -1;
+    private int lastTrailing;
+    private boolean ordered = true;
+
+    private GorillaSegment(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens existing segment or creates new one, points of existing segment are decoded to continue encoding.
+     */
+    static GorillaSegment open(Path file) throws IOException {
+        GorillaSegment segment = new GorillaSegment(file);
+        boolean exists = file.toFile().length() > 0;
+        segment.map(exists ? file.toFile().length() : INITIAL_CAPACITY);
+        if (exists) {
+            if (segment.buffer.getInt(0) != MAGIC) {
+                throw new IOException("not a readings segment: " + file);
+            }
+            int points = segment.buffer.getInt(4);
+            long bits = segment.buffer.getLong(8);
+            Decoder decoder = segment.new Decoder();
+            for (int i = 0; i < points; i++) {
+                long previous = decoder.time;
+                decoder.next();
+                if (i > 0 && decoder.time <= previous) {
+                    segment.ordered = false;
+                }
+            }
+            segment.count = points;
+            segment.bitLength = bits;
+            segment.lastTime = decoder.time;
+            segment.lastDelta = decoder.delta;
+            segment.lastValue = decoder.value;
+            segment.lastLeading = decoder.leading;
+            segment.lastTrailing = decoder.trailing;
+        } else {
+            segment.buffer.putInt(0, MAGIC);
+            segment.writeHeader();
+        }
+        return segment;
+    }
+
+    /**
+     * Appends the point, points not newer than the last one are ignored.
+     *
+     * @return false if the point was ignored.
+     */
+    synchronized boolean append(long time, double value) throws IOException {
+        if (count > 0 && time <= lastTime) {
+            return false;
+        }
+        write(time, value);
+        return true;
+    }
+
+    /**
+     * Appends the point also when it is not newer than the last one, reading such segment decodes all points.
+     */
+    synchronized void insert(long time, double value) throws IOException {
+        if (count > 0 && time <= lastTime) {
+            ordered = false;
+        }
+        write(time, value);
+    }
+
+    private void write(long time, double value) throws IOException {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            writeBits(time, 64);
+            writeBits(valueBits, 64);
+            lastDelta = 0;
+        } else {
+            long delta = time - lastTime;
+            writeDeltaOfDelta(delta - lastDelta);
+            lastDelta = delta;
+            writeValue(valueBits ^ lastValue);
+        }
+        lastTime = time;
+        lastValue = valueBits;
+        count++;
+        writeHeader();
+    }
+
+    /**
+     * Passes points with time from {@code from} to {@code to} (inclusive) to the consumer.
+     */
+    synchronized void read(long from, long to, PointConsumer consumer) {
+        Decoder decoder = new Decoder();
+        for (int i = 0; i < count; i++) {
+            decoder.next();
+            if (decoder.time > to) {
+                if (ordered) {
+                    return;
+                }
+            } else if (decoder.time >= from) {
+                consumer.accept(decoder.time, Double.longBitsToDouble(decoder.value));
+            }
+        }
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Releases the mapping, the segment must not be used after that.
+     */
+    synchronized void close() {
+        unmap(buffer);
+        buffer = null;
+    }
+
+    private void writeDeltaOfDelta(long dod) throws IOException {
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            writeBits(0b10, 2);
+            writeBits(dod + 63, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            writeBits(0b110, 3);
+            writeBits(dod + 255, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            writeBits(0b1110, 4);
+            writeBits(dod + 2047, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 64);
+        }
+    }
+
+    private void writeValue(long xor) throws IOException {
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        writeBits(1, 1);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            // Meaningful bits fit into the window of the previous value.
+            writeBits(0, 1);
+            writeBits(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            writeBits(1, 1);
+            writeBits(leading, 5);
+            writeBits(significant & 63, 6);
+            writeBits(xor >>> trailing, significant);
+            lastLeading = leading;
+            lastTrailing = trailing;
+        }
+    }
+
+    private void writeBits(long value, int bits) throws IOException {
+        ensureCapacity(bitLength + bits);
+        for (int i = bits - 1; i >= 0; i--) {
+            int pos = HEADER + (int) (bitLength >>> 3);
+            int mask = 1 << (7 - (int) (bitLength & 7));
+            byte b = buffer.get(pos);
+            buffer.put(pos, (byte) (((value >>> i) & 1) != 0 ? b | mask : b & ~mask));
+            bitLength++;
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(4, count);
+        buffer.putLong(8, bitLength);
+    }
+
+    private void ensureCapacity(long bits) throws IOException {
+        long bytes = HEADER + (bits + 7) / 8;
+        if (bytes > buffer.capacity()) {
+            map(Math.max(bytes, 2L * buffer.capacity()));
+        }
+    }
+
+    private void map(long size) throws IOException {
+        MappedByteBuffer previous = buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Mapping stays valid after the channel is closed, so open segments do not hold file descriptors.
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        if (previous != null) {
+            unmap(previous);
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null || buffer == null) {
+            return;
+        }
+        try {
+            UNMAP.invoke(buffer);
+        } catch (Throwable e) {
+            // Left to GC.
+        }
+    }
+
+    private static MethodHandle unmapHandle() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class)).bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads points from the start of the segment, keeps state of the encoder after the last read point.
+     */
+    private class Decoder {
+        private long position;
+        private long time;
+        private long delta;
+        private long value;
+        private int leading = -1;
+        private int trailing;
+        private int read;
+
+        void next() {
+            if (read == 0) {
+                time = readBits(64);
+                value = readBits(64);
+            } else {
+                delta += readDeltaOfDelta();
+                time += delta;
+                value ^= readXor();
+            }
+            read++;
+        }
+
+        private long readDeltaOfDelta() {
+            if (readBits(1) == 0) {
+                return 0;
+            }
+            if (readBits(1) == 0) {
+                return readBits(7) - 63;
+            }
+            if (readBits(1) == 0) {
+                return readBits(9) - 255;
+            }
+            if (readBits(1) == 0) {
+                return readBits(12) - 2047;
+            }
+            return readBits(64);
+        }
+
+        private long readXor() {
+            if (readBits(1) == 0) {
+                return 0;
+            }
+            if (readBits(1) != 0) {
+                leading = (int) readBits(5);
+                int significant = (int) readBits(6);
+                if (significant == 0) {
+                    significant = 64;
+                }
+                trailing = 64 - leading - significant;
+            }
+            return readBits(64 - leading - trailing) << trailing;
+        }
+
+        private long readBits(int bits) {
+            long res = 0;
+            for (int i = 0; i < bits; i++) {
+                int pos = HEADER + (int) (position >>> 3);
+                int bit = (buffer.get(pos) >>> (7 - (int) (position & 7))) & 1;
+                res = (res << 1) | bit;
+                position++;
+            }
+            return res;
+        }
+    }
+}
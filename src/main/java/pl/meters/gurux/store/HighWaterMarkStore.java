@@ -0,0 +1,97 @@
+package pl.meters.gurux.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time of last successfully read row per meter and profile. Updates are appended to a log file,
+ * which is compacted when it grows twice bigger than number of meters.
+ */
+@Component
+@Slf4j
+public class HighWaterMarkStore {
+
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final Map<String, LocalDateTime> marks = new HashMap<>();
+    private BufferedWriter writer;
+    private int logLines;
+
+    public HighWaterMarkStore(@Value("${gurux.store.directory:data}") String directory) throws IOException {
+        this.file = Paths.get(directory, "high-water-marks.log");
+        if (Files.exists(file)) {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                int pos = line.lastIndexOf(SEPARATOR);
+                if (pos > 0) {
+                    marks.put(line.substring(0, pos), LocalDateTime.parse(line.substring(pos + 1)));
+                }
+            }
+            logLines = lines.size();
+            log.info("loaded {} high water marks from {}", marks.size(), file);
+        }
+    }
+
+    public synchronized LocalDateTime get(MeterParams meterParams) {
+        return marks.get(key(meterParams));
+    }
+
+    /**
+     * Stores time of last read row, older time than already stored is ignored.
+     */
+    public synchronized void update(MeterParams meterParams, LocalDateTime lastRead) {
+        String key = key(meterParams);
+        LocalDateTime current = marks.get(key);
+        if (current != null && !lastRead.isAfter(current)) {
+            return;
+        }
+        marks.put(key, lastRead);
+        try {
+            if (logLines > 2 * marks.size() + 100) {
+                compact();
+            }
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(key + SEPARATOR + lastRead);
+            writer.newLine();
+            writer.flush();
+            logLines++;
+        } catch (IOException e) {
+            log.error("cannot store high water mark of meter " + key, e);
+        }
+    }
+
+    private void compact() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, LocalDateTime> it : marks.entrySet()) {
+                out.write(it.getKey() + SEPARATOR + it.getValue());
+                out.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logLines = marks.size();
+    }
+
+    private static String key(MeterParams meterParams) {
+        return (meterParams.meterIdentity() + "|" + meterParams.getProfileToReadLn()).replaceAll("\\s", "_");
+    }
+}
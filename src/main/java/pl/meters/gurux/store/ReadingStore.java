@@ -0,0 +1,284 @@
+package pl.meters.gurux.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.converters.ColumnarReadings;
+import pl.meters.gurux.converters.DlmsDateTime;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Local store of converted readings, so ranges already read can be served without connecting to the meter.
+ * Every field (OBIS) of every meter has one {@link GorillaSegment} file per day:
+ * {@code directory/meter/obis/yyyy-MM-dd.gor} (local day of the row). Rows not newer than the last stored row
+ * of the day (e.g. backfill of the morning after the afternoon was stored) go to {@code yyyy-MM-dd.late.gor}
+ * of the day, unless the time is already stored, and both files are merged by queries. Empty values are
+ * stored as NaN.
+ * Segments in use are never unmapped: segment evicted from open segments is unmapped when the last user
+ * releases it and is taken back when the file is needed again before that, so one file has one mapping.
+ */
+@Component
+@Slf4j
+public class ReadingStore {
+
+    private static final String SEGMENT = ".gor";
+    private static final String LATE = ".late.gor";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final Map<Path, OpenSegment> segments;
+    /**
+     * Segments evicted from {@code segments} while in use.
+     */
+    private final Map<Path, OpenSegment> evicted = new HashMap<>();
+
+    public ReadingStore(@Value("${gurux.readings-store.enabled:false}") boolean enabled,
+                        @Value("${gurux.readings-store.directory:data/readings}") String directory,
+                        @Value("${gurux.readings-store.max-open-segments:4096}") int maxOpenSegments) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segments = new LinkedHashMap<Path, OpenSegment>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, OpenSegment> eldest) {
+                if (size() <= maxOpenSegments) {
+                    return false;
+                }
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores rows converted for {@code meterParams}, one column buffer per field. Times are instants of rows,
+     * so rows of the hour repeated when DST ends are stored too. Problems with storing are logged,
+     * they do not fail the reading.
+     */
+    public void append(MeterParams meterParams, ColumnarReadings readings) {
+        DlmsDateTime dateTime = DlmsDateTime.systemDefault();
+        try {
+            for (int column = 0; column < readings.columns(); column++) {
+                String obis = readings.name(column);
+                OpenSegment open = null;
+                long day = 0;
+                TreeMap<Long, Double> late = new TreeMap<>();
+                try {
+                    for (int row = 0; row < readings.size(); row++) {
+                        long epochSecond = readings.time(row);
+                        if (epochSecond == ColumnarReadings.NO_TIME) {
+                            continue;
+                        }
+                        long rowDay = Math.floorDiv(dateTime.localSecond(epochSecond), 86400L);
+                        if (open == null || rowDay != day) {
+                            if (open != null) {
+                                appendLate(meterParams, obis, LocalDate.ofEpochDay(day), open, late);
+                            }
+                            release(open);
+                            open = null;
+                            open = acquire(meterParams, obis, LocalDate.ofEpochDay(rowDay), SEGMENT, true);
+                            day = rowDay;
+                        }
+                        double value = readings.value(column, row);
+                        if (!open.segment.append(epochSecond, value)) {
+                            late.put(epochSecond, value);
+                        }
+                    }
+                    if (open != null) {
+                        appendLate(meterParams, obis, LocalDate.ofEpochDay(day), open, late);
+                    }
+                } finally {
+                    release(open);
+                }
+            }
+        } catch (IOException e) {
+            log.error("cannot store readings of meter " + meterParams.meterIdentity(), e);
+        }
+    }
+
+    /**
+     * Stores points of the day older than the last point of its segment in the late segment of the day,
+     * without points which are already stored in one of them.
+     */
+    private void appendLate(MeterParams meterParams, String obis, LocalDate day, OpenSegment open,
+                            TreeMap<Long, Double> late) throws IOException {
+        if (late.isEmpty()) {
+            return;
+        }
+        open.segment.read(late.firstKey(), late.lastKey(), (time, value) -> late.remove(time));
+        if (late.isEmpty()) {
+            return;
+        }
+        OpenSegment lateOpen = acquire(meterParams, obis, day, LATE, true);
+        try {
+            lateOpen.segment.read(late.firstKey(), late.lastKey(), (time, value) -> late.remove(time));
+            for (Map.Entry<Long, Double> point : late.entrySet()) {
+                lateOpen.segment.insert(point.getKey(), point.getValue());
+            }
+        } finally {
+            release(lateOpen);
+            late.clear();
+        }
+    }
+
+    /**
+     * Stored rows of {@code fieldsOfProfileLn} from {@code from} to {@code to}, in the same form as read from
+     * the meter. Row is returned when any of the fields has it.
+     */
+    public List<Object[]> query(MeterParams meterParams) throws IOException {
+        DlmsDateTime dateTime = DlmsDateTime.systemDefault();
+        List<Object[]> res = new ArrayList<>();
+        for (Map.Entry<Long, double[]> point : points(meterParams).entrySet()) {
+            double[] values = point.getValue();
+            Object[] row = new Object[values.length + 1];
+            row[0] = DlmsDateTime.format(dateTime.localSecond(point.getKey()));
+            for (int i = 0; i < values.length; i++) {
+                row[i + 1] = Double.isNaN(values[i]) ? null : values[i];
+            }
+            res.add(row);
+        }
+        return res;
+    }
+
+    /**
+     * The same rows as {@link #query(MeterParams)} appended to column buffers of {@code fieldsOfProfileLn}.
+     */
+    public void query(MeterParams meterParams, ColumnarReadings res) throws IOException {
+        for (Map.Entry<Long, double[]> point : points(meterParams).entrySet()) {
+            int row = res.appendRow(point.getKey());
+            double[] values = point.getValue();
+            for (int i = 0; i < values.length; i++) {
+                res.set(i, row, values[i]);
+            }
+        }
+    }
+
+    /**
+     * Values of fields (NaN - no value) by instant.
+     */
+    private TreeMap<Long, double[]> points(MeterParams meterParams) throws IOException {
+        if (meterParams.getFrom() == null || meterParams.getTo() == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        List<String> fields = meterParams.getFieldsOfProfileLn();
+        ZoneId zone = ZoneId.systemDefault();
+        long from = meterParams.getFrom().atZone(zone).toEpochSecond();
+        long to = meterParams.getTo().atZone(zone).toEpochSecond();
+        TreeMap<Long, double[]> points = new TreeMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            int column = i;
+            for (LocalDate day = meterParams.getFrom().toLocalDate(); !day.isAfter(meterParams.getTo().toLocalDate());
+                 day = day.plusDays(1)) {
+                for (String kind : new String[]{SEGMENT, LATE}) {
+                    OpenSegment open = acquire(meterParams, fields.get(i), day, kind, false);
+                    if (open == null) {
+                        continue;
+                    }
+                    try {
+                        open.segment.read(from, to, (time, value) -> points.computeIfAbsent(time, it -> newValues(fields.size()))
+                                [column] = value);
+                    } finally {
+                        release(open);
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    private static double[] newValues(int fields) {
+        double[] values = new double[fields];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    /**
+     * Segment of the day ({@link #SEGMENT} or {@link #LATE}), must be released after use.
+     *
+     * @return null if segment does not exist and {@code create} is false.
+     */
+    private OpenSegment acquire(MeterParams meterParams, String obis, LocalDate day, String kind,
+                                boolean create) throws IOException {
+        Path file = directory.resolve(fileName(meterParams.meterIdentity())).resolve(fileName(obis))
+                .resolve(day + kind);
+        OpenSegment open;
+        synchronized (segments) {
+            open = segments.get(file);
+            if (open == null) {
+                open = evicted.remove(file);
+                if (open == null) {
+                    if (!create && !Files.exists(file)) {
+                        return null;
+                    }
+                    Files.createDirectories(file.getParent());
+                    open = new OpenSegment(file, GorillaSegment.open(file));
+                }
+                open.evicted = false;
+                segments.put(file, open);
+            }
+            open.users++;
+        }
+        return open;
+    }
+
+    private void release(OpenSegment open) {
+        if (open == null) {
+            return;
+        }
+        synchronized (segments) {
+            open.users--;
+            if (open.evicted && open.users == 0) {
+                evicted.remove(open.file);
+                open.segment.close();
+            }
+        }
+    }
+
+    /**
+     * Called under the lock of {@code segments}.
+     */
+    private void evict(OpenSegment open) {
+        if (open.users == 0) {
+            open.segment.close();
+        } else {
+            open.evicted = true;
+            evicted.put(open.file, open);
+        }
+    }
+
+    private static String fileName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Mapped segment and number of threads using it, guarded by the lock of {@code segments}.
+     */
+    private static final class OpenSegment {
+        private final Path file;
+        private final GorillaSegment segment;
+        private int users;
+        private boolean evicted;
+
+        OpenSegment(Path file, GorillaSegment segment) {
+            this.file = file;
+            this.segment = segment;
+        }
+    }
+}
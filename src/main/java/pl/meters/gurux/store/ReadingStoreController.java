@@ -0,0 +1,39 @@
+package pl.meters.gurux.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import pl.meters.gurux.converters.ColumnarFormat;
+import pl.meters.gurux.converters.ColumnarReadings;
+import pl.meters.gurux.dto.MeterParams;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class ReadingStoreController {
+
+    private final ReadingStore readingStore;
+
+    /**
+     * Stored readings of the meter from {@code from} to {@code to}, the meter is not connected.
+     */
+    @PostMapping("/store/read")
+    public ResponseEntity<?> getStoredReadings(@RequestBody MeterParams meterParams,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        if (!readingStore.isEnabled()) {
+            throw new ReadingStoreDisabledException();
+        }
+        if (ColumnarFormat.accepts(accept)) {
+            ColumnarReadings readings = new ColumnarReadings(meterParams.getFieldsOfProfileLn(), 0);
+            readingStore.query(meterParams, readings);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(ColumnarFormat.MEDIA_TYPE)).body(ColumnarFormat.toBytes(readings));
+        }
+        return ResponseEntity.ok(readingStore.query(meterParams));
+    }
+}
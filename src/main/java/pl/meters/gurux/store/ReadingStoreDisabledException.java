@@ -0,0 +1,12 @@
+package pl.meters.gurux.store;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReadingStoreDisabledException extends RuntimeException {
+
+    public ReadingStoreDisabledException() {
+        super("readings store is not enabled");
+    }
+}
@@ -0,0 +1,39 @@
+package pl.meters.gurux.trace;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocol trace of one meter session. Whether frames are recorded is checked on every frame,
+ * so tracing switched on for the meter applies to already open sessions too.
+ */
+public class SessionTrace {
+
+    public static final SessionTrace NONE = new SessionTrace(null, "");
+
+    private final TraceSink sink;
+    private final String session;
+
+    SessionTrace(TraceSink sink, String session) {
+        this.sink = sink;
+        this.session = session;
+    }
+
+    public boolean isEnabled() {
+        return sink != null && sink.isTraced(session);
+    }
+
+    /**
+     * Records frame sent to ({@code tx}) or received from the meter, frame is copied.
+     */
+    public void frame(boolean tx, byte[] data) {
+        if (data != null && isEnabled()) {
+            sink.offer(new TraceRecord(System.currentTimeMillis(), session, tx ? TraceRecord.TX : TraceRecord.RX, data.clone()));
+        }
+    }
+
+    public void text(String line) {
+        if (isEnabled()) {
+            sink.offer(new TraceRecord(System.currentTimeMillis(), session, TraceRecord.TEXT, line.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
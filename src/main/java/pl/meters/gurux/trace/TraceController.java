@@ -0,0 +1,35 @@
+package pl.meters.gurux.trace;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+/**
+ * Switches protocol trace on and off for single meter, identified the same as in {@code MeterParams}
+ * ({@code meterId} or {@code host:port/physicalAddress}).
+ */
+@RestController
+@RequestMapping("/trace/meters")
+@RequiredArgsConstructor
+public class TraceController {
+
+    private final TraceSink traceSink;
+
+    @GetMapping
+    public Set<String> getTracedMeters() {
+        return traceSink.getTracedMeters();
+    }
+
+    @PutMapping
+    public Set<String> enable(@RequestParam String meter) {
+        traceSink.enable(meter);
+        return traceSink.getTracedMeters();
+    }
+
+    @DeleteMapping
+    public Set<String> disable(@RequestParam String meter) {
+        traceSink.disable(meter);
+        return traceSink.getTracedMeters();
+    }
+}
@@ -0,0 +1,21 @@
+package pl.meters.gurux.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One record of protocol trace: frame sent to or received from the meter, or text line.
+ */
+@Getter
+@AllArgsConstructor
+public class TraceRecord {
+
+    public static final byte TX = 'T';
+    public static final byte RX = 'R';
+    public static final byte TEXT = 'I';
+
+    private final long timestamp;
+    private final String session;
+    private final byte type;
+    private final byte[] payload;
+}
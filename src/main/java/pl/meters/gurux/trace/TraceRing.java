@@ -0,0 +1,69 @@
+package pl.meters.gurux.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring of trace records for many producers (meter sessions) and one consumer (trace writer).
+ * Every slot has sequence number telling whether it is free for producer of given position or ready for consumer.
+ * When the ring is full, records are dropped instead of blocking the session.
+ */
+class TraceRing {
+
+    private final int mask;
+    private final AtomicReferenceArray<TraceRecord> records;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    TraceRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.records = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return false if the ring is full.
+     */
+    boolean offer(TraceRecord record) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long diff = sequences.get(slot) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    records.lazySet(slot, record);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Called by the writer thread only.
+     *
+     * @return next record or null when the ring is empty.
+     */
+    TraceRecord poll() {
+        int slot = (int) (head & mask);
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        TraceRecord record = records.get(slot);
+        records.lazySet(slot, null);
+        sequences.set(slot, head + mask + 1);
+        head++;
+        return record;
+    }
+}
@@ -0,0 +1,205 @@
+package pl.meters.gurux.trace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Protocol trace of meter sessions. Sessions put records into {@link TraceRing}, one writer thread drains it
+ * to rolling files {@code dlms-trace-<time>.bin} of at most {@code gurux.trace.max-file-size-mb},
+ * only {@code gurux.trace.max-files} newest files are kept.
+ * <p>
+ * Record format: epoch millis (long), session id (UTF with length), type ({@code T} sent frame, {@code R} received
+ * frame, {@code I} text), payload length (int) and payload bytes.
+ */
+@Component
+@Slf4j
+public class TraceSink {
+
+    private static final String FILE_PREFIX = "dlms-trace-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final boolean traceAll;
+    private final TraceRing ring;
+    private final Set<String> tracedMeters = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    /**
+     * Writer found the ring empty and parks until the next record is offered.
+     */
+    private volatile boolean idle;
+
+    private DataOutputStream out;
+    private long fileSize;
+
+    public TraceSink(@Value("${gurux.trace.directory:trace}") String directory,
+                     @Value("${gurux.trace.max-file-size-mb:64}") int maxFileSizeMb,
+                     @Value("${gurux.trace.max-files:10}") int maxFiles,
+                     @Value("${gurux.trace.ring-size:65536}") int ringSize,
+                     @Value("${gurux.trace.all:false}") boolean traceAll) {
+        this.directory = Paths.get(directory);
+        this.maxFileSize = maxFileSizeMb * 1024L * 1024L;
+        this.maxFiles = maxFiles;
+        this.traceAll = traceAll;
+        this.ring = new TraceRing(ringSize);
+        this.writerThread = new Thread(this::writeLoop, "trace-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Trace of the session with the meter identified by {@code meter}.
+     */
+    public SessionTrace session(String meter) {
+        return new SessionTrace(this, meter);
+    }
+
+    public boolean isTraced(String meter) {
+        return traceAll || (!tracedMeters.isEmpty() && tracedMeters.contains(meter));
+    }
+
+    public void enable(String meter) {
+        log.info("protocol trace enabled for meter {}", meter);
+        tracedMeters.add(meter);
+    }
+
+    public void disable(String meter) {
+        log.info("protocol trace disabled for meter {}", meter);
+        tracedMeters.remove(meter);
+    }
+
+    public Set<String> getTracedMeters() {
+        return new TreeSet<>(tracedMeters);
+    }
+
+    /**
+     * Number of records dropped, because the writer did not keep up with sessions.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    void offer(TraceRecord record) {
+        if (!ring.offer(record)) {
+            dropped.incrementAndGet();
+        } else if (idle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void writeLoop() {
+        boolean unflushed = false;
+        while (running) {
+            TraceRecord record = ring.poll();
+            if (record == null) {
+                if (unflushed) {
+                    flush();
+                    unflushed = false;
+                }
+                // Ring is checked again after idle is set, so record offered meanwhile either is polled here
+                // or its offer unparks the writer.
+                idle = true;
+                record = ring.poll();
+                if (record == null && running) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                if (record == null) {
+                    continue;
+                }
+            }
+            write(record);
+            unflushed = true;
+        }
+        TraceRecord record;
+        while ((record = ring.poll()) != null) {
+            write(record);
+        }
+        closeFile();
+    }
+
+    private void write(TraceRecord record) {
+        try {
+            if (out == null || fileSize >= maxFileSize) {
+                roll();
+            }
+            int start = out.size();
+            out.writeLong(record.getTimestamp());
+            out.writeUTF(record.getSession());
+            out.writeByte(record.getType());
+            out.writeInt(record.getPayload().length);
+            out.write(record.getPayload());
+            fileSize += out.size() - start;
+        } catch (IOException e) {
+            log.error("cannot write protocol trace: {}", e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void roll() throws IOException {
+        closeFile();
+        Files.createDirectories(directory);
+        String name = FILE_PREFIX + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + FILE_SUFFIX;
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(name)), 64 * 1024));
+        fileSize = 0;
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(it -> it.getFileName().toString().startsWith(FILE_PREFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.error("cannot flush protocol trace: {}", e.getMessage());
+                closeFile();
+            }
+        }
+    }
+
+    private void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.error("cannot close protocol trace: {}", e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
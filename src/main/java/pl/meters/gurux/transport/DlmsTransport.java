@@ -0,0 +1,43 @@
+package pl.meters.gurux.transport;
+
+import gurux.common.ReceiveParameters;
+import gurux.dlms.GXByteBuffer;
+
+/**
+ * Connection to the meter used by {@link pl.meters.gurux.dlms.DLMSReaderImpl}, blocking Gurux media
+ * ({@link GXMediaTransport}) or connection multiplexed on NIO selector ({@link NioTransport}).
+ */
+public interface DlmsTransport {
+
+    void open() throws Exception;
+
+    boolean isOpen();
+
+    void close() throws Exception;
+
+    void send(byte[] data) throws Exception;
+
+    /**
+     * Waits at most {@code p.getWaitTime()} ms for reply, received bytes are appended to {@code p.getReply()}.
+     *
+     * @return false if nothing was received in time.
+     */
+    boolean receive(ReceiveParameters<byte[]> p) throws Exception;
+
+    /**
+     * Waits for reply like {@link #receive(ReceiveParameters)} and appends received bytes to {@code target}.
+     */
+    default boolean receive(ReceiveParameters<byte[]> p, GXByteBuffer target) throws Exception {
+        p.setReply(null);
+        if (!receive(p)) {
+            return false;
+        }
+        target.set(p.getReply());
+        return true;
+    }
+
+    /**
+     * True for TCP/UDP connections, WRAPPER frames have no end of packet byte there.
+     */
+    boolean isNetwork();
+}
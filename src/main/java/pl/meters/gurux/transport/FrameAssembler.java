@@ -0,0 +1,89 @@
+package pl.meters.gurux.transport;
+
+import gurux.dlms.enums.InterfaceType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits bytes received from the meter into whole HDLC or WRAPPER frames. Bytes of incomplete frame are kept
+ * until the rest arrives, bytes outside of frames (line noise) are skipped. HDLC frames sent back to back
+ * may share one flag, which closes one frame and opens the next one.
+ */
+class FrameAssembler {
+
+    private static final int HDLC_FLAG = 0x7E;
+    private static final int WRAPPER_HEADER = 8;
+
+    private final boolean hdlc;
+    private byte[] pending = new byte[256];
+    private int length;
+
+    FrameAssembler(InterfaceType framing) {
+        this.hdlc = framing != InterfaceType.WRAPPER;
+    }
+
+    /**
+     * Appends readable bytes of {@code data} and passes every completed frame to {@code frames}.
+     */
+    void feed(ByteBuffer data, Consumer<byte[]> frames) {
+        int count = data.remaining();
+        if (length + count > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, length + count));
+        }
+        data.get(pending, length, count);
+        length += count;
+        int start = 0;
+        int frameLength;
+        while ((frameLength = hdlc ? hdlcFrame(start) : wrapperFrame(start)) != 0) {
+            if (frameLength > 0) {
+                frames.accept(Arrays.copyOfRange(pending, start, start + frameLength));
+                // Closing HDLC flag is kept as possible opening flag of the next frame, lone flag is skipped later.
+                start += hdlc ? frameLength - 1 : frameLength;
+            } else {
+                start -= frameLength;
+            }
+        }
+        System.arraycopy(pending, start, pending, 0, length - start);
+        length -= start;
+    }
+
+    /**
+     * @return length of complete frame at {@code start}, 0 if more bytes are needed, or negative count
+     * of bytes to skip.
+     */
+    private int hdlcFrame(int start) {
+        int available = length - start;
+        if (available == 0) {
+            return 0;
+        }
+        if ((pending[start] & 0xFF) != HDLC_FLAG) {
+            return -1;
+        }
+        if (available < 3) {
+            return 0;
+        }
+        // Frame format type 3 has 11-bit length of the frame without flags.
+        int frameLength = (((pending[start + 1] & 0x07) << 8) | (pending[start + 2] & 0xFF)) + 2;
+        if (frameLength < 4 || (pending[start + 1] & 0xF0) != 0xA0) {
+            return -1;
+        }
+        if (available < frameLength) {
+            return 0;
+        }
+        return (pending[start + frameLength - 1] & 0xFF) == HDLC_FLAG ? frameLength : -1;
+    }
+
+    private int wrapperFrame(int start) {
+        int available = length - start;
+        if (available < WRAPPER_HEADER) {
+            return 0;
+        }
+        if (pending[start] != 0 || pending[start + 1] != 1) {
+            return -1;
+        }
+        int frameLength = WRAPPER_HEADER + (((pending[start + 6] & 0xFF) << 8) | (pending[start + 7] & 0xFF));
+        return (available < frameLength) ? 0 : frameLength;
+    }
+}
@@ -0,0 +1,53 @@
+package pl.meters.gurux.transport;
+
+import gurux.common.IGXMedia;
+import gurux.common.ReceiveParameters;
+import gurux.net.GXNet;
+
+/**
+ * Transport on blocking Gurux media, one socket read by the session thread.
+ */
+public class GXMediaTransport implements DlmsTransport {
+
+    private final IGXMedia media;
+    /**
+     * Media stays in synchronous mode as long as this object is referenced.
+     */
+    private Object synchronous;
+
+    public GXMediaTransport(IGXMedia media) {
+        this.media = media;
+    }
+
+    @Override
+    public void open() throws Exception {
+        media.open();
+        synchronous = media.getSynchronous();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return media.isOpen();
+    }
+
+    @Override
+    public void close() {
+        media.close();
+        synchronous = null;
+    }
+
+    @Override
+    public void send(byte[] data) throws Exception {
+        media.send(data, null);
+    }
+
+    @Override
+    public boolean receive(ReceiveParameters<byte[]> p) {
+        return media.receive(p);
+    }
+
+    @Override
+    public boolean isNetwork() {
+        return media instanceof GXNet;
+    }
+}
@@ -0,0 +1,73 @@
+package pl.meters.gurux.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Selector thread serving many {@link NioTransport} connections. Registration, connecting, writing and
+ * reading of the connections are done only on this thread, received bytes are read into one direct buffer
+ * and split into frames there.
+ */
+@Slf4j
+class NioEventLoop implements AutoCloseable {
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private volatile boolean running = true;
+
+    NioEventLoop(String name) throws IOException {
+        selector = Selector.open();
+        Thread.ofPlatform().daemon().name(name).start(this::run);
+    }
+
+    /**
+     * Runs the task on the selector thread.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    ((NioTransport) key.attachment()).ready(key, readBuffer);
+                }
+            } catch (Exception e) {
+                log.error("selector loop failed", e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.info("cannot close selector: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
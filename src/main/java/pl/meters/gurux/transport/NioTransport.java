@@ -0,0 +1,214 @@
+package pl.meters.gurux.transport;
+
+import gurux.common.ReceiveParameters;
+import gurux.dlms.GXByteBuffer;
+import gurux.dlms.enums.InterfaceType;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking TCP connection to the meter served by {@link NioEventLoop}. No thread is blocked on the socket,
+ * the selector thread reassembles whole HDLC or WRAPPER frames and the session thread only waits for the next
+ * frame (parking virtual thread, not holding OS thread).
+ */
+public class NioTransport implements DlmsTransport {
+
+    private static final byte[] CLOSED = new byte[0];
+
+    private final NioEventLoop loop;
+    private final String hostName;
+    private final int port;
+    private final int connectTimeoutMs;
+    private final FrameAssembler assembler;
+    private final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+    private final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+    private SocketChannel channel;
+    private SelectionKey key;
+    private volatile boolean open;
+
+    NioTransport(NioEventLoop loop, String hostName, int port, InterfaceType framing, int connectTimeoutMs) {
+        this.loop = loop;
+        this.hostName = hostName;
+        this.port = port;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.assembler = new FrameAssembler(framing);
+    }
+
+    @Override
+    public void open() throws Exception {
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        loop.execute(this::connect);
+        try {
+            connected.get(connectTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            close();
+            throw new IOException("connection to " + hostName + ":" + port + " timed out");
+        } catch (ExecutionException e) {
+            close();
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        open = true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        // Key of closed channel is cancelled by the selector.
+        channel.close();
+    }
+
+    @Override
+    public void send(byte[] data) throws IOException {
+        if (!open) {
+            throw new IOException("connection to " + hostName + ":" + port + " is closed");
+        }
+        // Frames which arrived after the previous request timed out are not replies to this one.
+        byte[] stale;
+        while ((stale = frames.poll()) != null) {
+            if (stale == CLOSED) {
+                frames.add(CLOSED);
+                throw new IOException("connection closed by " + hostName + ":" + port);
+            }
+        }
+        writes.add(ByteBuffer.wrap(data));
+        loop.execute(this::flush);
+    }
+
+    @Override
+    public boolean receive(ReceiveParameters<byte[]> p) throws Exception {
+        byte[] frame = nextFrame(p.getWaitTime());
+        if (frame == null) {
+            return false;
+        }
+        if (p.getReply() == null) {
+            p.setReply(frame);
+        } else {
+            byte[] reply = new byte[p.getReply().length + frame.length];
+            System.arraycopy(p.getReply(), 0, reply, 0, p.getReply().length);
+            System.arraycopy(frame, 0, reply, p.getReply().length, frame.length);
+            p.setReply(reply);
+        }
+        return true;
+    }
+
+    /**
+     * Frame is appended to {@code target} directly, without building reply array.
+     */
+    @Override
+    public boolean receive(ReceiveParameters<byte[]> p, GXByteBuffer target) throws Exception {
+        byte[] frame = nextFrame(p.getWaitTime());
+        if (frame == null) {
+            return false;
+        }
+        target.set(frame);
+        return true;
+    }
+
+    private byte[] nextFrame(int waitTime) throws Exception {
+        byte[] frame = frames.poll(waitTime, TimeUnit.MILLISECONDS);
+        if (frame == CLOSED) {
+            frames.add(CLOSED);
+            throw new IOException("connection closed by " + hostName + ":" + port);
+        }
+        return frame;
+    }
+
+    @Override
+    public boolean isNetwork() {
+        return true;
+    }
+
+    private void connect() {
+        try {
+            boolean done = channel.connect(new InetSocketAddress(hostName, port));
+            key = channel.register(loop.selector(), done ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            if (done) {
+                connected.complete(null);
+            }
+        } catch (IOException e) {
+            connected.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Called on the selector thread when the channel is ready.
+     */
+    void ready(SelectionKey key, ByteBuffer readBuffer) {
+        try {
+            if (key.isConnectable()) {
+                channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                connected.complete(null);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                readBuffer.clear();
+                if (channel.read(readBuffer) < 0) {
+                    fail();
+                    return;
+                }
+                readBuffer.flip();
+                assembler.feed(readBuffer, frames::add);
+            }
+        } catch (IOException e) {
+            connected.completeExceptionally(e);
+            fail();
+        }
+    }
+
+    /**
+     * Writes queued requests, what cannot be written now is written when the channel is writable.
+     */
+    private void flush() {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        try {
+            ByteBuffer data;
+            while ((data = writes.peek()) != null) {
+                channel.write(data);
+                if (data.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                writes.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            fail();
+        }
+    }
+
+    private void fail() {
+        open = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Closed anyway.
+        }
+        frames.add(CLOSED);
+    }
+}
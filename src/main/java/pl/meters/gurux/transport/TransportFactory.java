@@ -0,0 +1,67 @@
+package pl.meters.gurux.transport;
+
+import gurux.common.enums.TraceLevel;
+import gurux.dlms.enums.InterfaceType;
+import gurux.net.GXNet;
+import gurux.net.enums.NetworkType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.meters.gurux.dto.MeterParams;
+import pl.meters.gurux.execution.ExecutionMode;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates transports to meters: blocking {@link GXNet} socket per session ({@code gurux.transport.mode=blocking},
+ * default) or NIO connections multiplexed on {@code gurux.transport.nio-threads} selector threads
+ * ({@code gurux.transport.mode=nio}).
+ */
+@Component
+@Slf4j
+public class TransportFactory {
+
+    private final boolean nio;
+    private final int connectTimeoutMs;
+    private final NioEventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public TransportFactory(@Value("${gurux.transport.mode:blocking}") String mode,
+                            @Value("${gurux.transport.nio-threads:2}") int nioThreads,
+                            @Value("${gurux.transport.connect-timeout-ms:10000}") int connectTimeoutMs,
+                            @Value("${gurux.execution.mode:platform}") ExecutionMode executionMode) throws IOException {
+        this.nio = "nio".equalsIgnoreCase(mode);
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.loops = new NioEventLoop[nio ? Math.max(1, nioThreads) : 0];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new NioEventLoop("dlms-nio-" + i);
+        }
+        log.info("DLMS transport: {}", nio ? "nio, " + loops.length + " selector threads" : "blocking");
+        if (executionMode == ExecutionMode.VIRTUAL && !nio) {
+            // GXNet starts receiver thread per connection and waits for reply in synchronized block (pinned carrier).
+            log.warn("virtual threads with blocking transport still hold one OS thread per session, use gurux.transport.mode=nio");
+        }
+    }
+
+    public DlmsTransport create(MeterParams meterParams, InterfaceType framing) {
+        if (nio) {
+            NioEventLoop loop = loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+            return new NioTransport(loop, meterParams.getHostName(), meterParams.getPort(), framing, connectTimeoutMs);
+        }
+        GXNet media = new GXNet();
+        media.setHostName(meterParams.getHostName());
+        media.setPort(meterParams.getPort());
+        media.setTrace(TraceLevel.INFO);
+        media.setProtocol(NetworkType.TCP);
+        return new GXMediaTransport(media);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (NioEventLoop loop : loops) {
+            loop.close();
+        }
+    }
+}
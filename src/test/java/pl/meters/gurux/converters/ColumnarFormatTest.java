@@ -0,0 +1,83 @@
+package pl.meters.gurux.converters;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarFormatTest {
+
+    @Test
+    void decodesEncodedReadings() throws IOException {
+        ColumnarReadings readings = new ColumnarReadings(List.of("1.0.1.8.0.255", "1.0.2.8.0.255"), 2);
+        long[] times = {1714514400L, 1714515300L, ColumnarReadings.NO_TIME};
+        double[][] values = {{1.5, 2.25, Double.NaN}, {-3, 0, 1e300}};
+        for (int row = 0; row < times.length; row++) {
+            readings.appendRow(times[row]);
+            for (int column = 0; column < values.length; column++) {
+                readings.set(column, row, values[column][row]);
+            }
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(ColumnarFormat.toBytes(readings)));
+
+        assertEquals(0x4d524431, in.readInt());
+        assertEquals(2, in.readInt());
+        List<String> names = new ArrayList<>();
+        for (int column = 0; column < 2; column++) {
+            byte[] name = new byte[in.readUnsignedShort()];
+            in.readFully(name);
+            names.add(new String(name, StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of("1.0.1.8.0.255", "1.0.2.8.0.255"), names);
+        int size = in.readInt();
+        long[] readTimes = new long[size];
+        for (int row = 0; row < size; row++) {
+            readTimes[row] = in.readLong();
+        }
+        assertArrayEquals(times, readTimes);
+        for (double[] column : values) {
+            double[] readValues = new double[size];
+            for (int row = 0; row < size; row++) {
+                readValues[row] = in.readDouble();
+            }
+            assertArrayEquals(column, readValues);
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void encodesEmptyReadings() {
+        ColumnarReadings readings = new ColumnarReadings(List.of(), 0);
+
+        assertArrayEquals(new byte[]{0x4d, 0x52, 0x44, 0x31, 0, 0, 0, 0, 0, 0, 0, 0}, ColumnarFormat.toBytes(readings));
+    }
+
+    @Test
+    void isSelectedWhenPreferredToJson() {
+        assertTrue(ColumnarFormat.accepts(ColumnarFormat.MEDIA_TYPE));
+        assertTrue(ColumnarFormat.accepts("application/vnd.meter-readings, */*;q=0.1"));
+        assertTrue(ColumnarFormat.accepts("application/json;q=0.5, application/vnd.meter-readings"));
+        assertTrue(ColumnarFormat.accepts("application/json;q=0, application/vnd.meter-readings;q=0.2"));
+    }
+
+    @Test
+    void isNotSelectedForJsonWildcardsOrZeroQuality() {
+        assertFalse(ColumnarFormat.accepts(null));
+        assertFalse(ColumnarFormat.accepts(""));
+        assertFalse(ColumnarFormat.accepts("*/*"));
+        assertFalse(ColumnarFormat.accepts("application/*"));
+        assertFalse(ColumnarFormat.accepts("application/json, application/vnd.meter-readings;q=0"));
+        assertFalse(ColumnarFormat.accepts("application/vnd.meter-readings;q=0.5, application/json"));
+        assertFalse(ColumnarFormat.accepts("not a media type;;"));
+    }
+}
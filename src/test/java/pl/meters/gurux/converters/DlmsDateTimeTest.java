@@ -0,0 +1,132 @@
+package pl.meters.gurux.converters;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DlmsDateTimeTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final int NO_DEVIATION = 0x8000;
+
+    private final DlmsDateTime dateTime = new DlmsDateTime(WARSAW);
+
+    @Test
+    void convertsTimeWithDeviationFromMeterOffset() {
+        // Meter in CET sends deviation -60: UTC = local time + deviation.
+        byte[] value = octets(2024, 1, 15, 12, 0, 0, -60);
+
+        assertEquals(epoch(2024, 1, 15, 11, 0), dateTime.epochSecond(value, Long.MIN_VALUE));
+        assertEquals(local(2024, 1, 15, 12, 0), dateTime.localSecond(value, Long.MIN_VALUE));
+    }
+
+    @Test
+    void convertsTimeOfMeterInOtherZoneToLocalTime() {
+        // Meter kept in UTC, local time of the zone is 13:00 in winter.
+        byte[] value = octets(2024, 1, 15, 12, 0, 0, 0);
+
+        assertEquals(epoch(2024, 1, 15, 12, 0), dateTime.epochSecond(value, Long.MIN_VALUE));
+        assertEquals(local(2024, 1, 15, 13, 0), dateTime.localSecond(value, Long.MIN_VALUE));
+    }
+
+    @Test
+    void takesTimeWithoutDeviationAsLocalTime() {
+        byte[] winter = octets(2024, 1, 15, 12, 0, 0, NO_DEVIATION);
+        byte[] summer = octets(2024, 7, 15, 12, 0, 0, NO_DEVIATION);
+
+        assertEquals(epoch(2024, 1, 15, 11, 0), dateTime.epochSecond(winter, Long.MIN_VALUE));
+        assertEquals(epoch(2024, 7, 15, 10, 0), dateTime.epochSecond(summer, Long.MIN_VALUE));
+        assertEquals(local(2024, 7, 15, 12, 0), dateTime.localSecond(summer, Long.MIN_VALUE));
+    }
+
+    @Test
+    void keepsRepeatedHourApartWhenDstEnds() {
+        byte[] summer = octets(2024, 10, 27, 2, 30, 0, -120);
+        byte[] winter = octets(2024, 10, 27, 2, 30, 0, -60);
+
+        assertEquals(epoch(2024, 10, 27, 0, 30), dateTime.epochSecond(summer, Long.MIN_VALUE));
+        assertEquals(epoch(2024, 10, 27, 1, 30), dateTime.epochSecond(winter, Long.MIN_VALUE));
+        assertEquals(local(2024, 10, 27, 2, 30), dateTime.localSecond(summer, Long.MIN_VALUE));
+        assertEquals(local(2024, 10, 27, 2, 30), dateTime.localSecond(winter, Long.MIN_VALUE));
+    }
+
+    @Test
+    void resolvesLocalTimeAroundDstChangesLikeZonedDateTime() {
+        LocalDateTime[] times = {
+                LocalDateTime.of(2024, 3, 31, 1, 59),
+                // Gap, moved forward.
+                LocalDateTime.of(2024, 3, 31, 2, 30),
+                LocalDateTime.of(2024, 3, 31, 3, 0),
+                // Overlap, earlier offset.
+                LocalDateTime.of(2024, 10, 27, 2, 30),
+                LocalDateTime.of(2024, 10, 27, 3, 0),
+                LocalDateTime.of(2024, 12, 31, 23, 59, 59)
+        };
+        for (LocalDateTime time : times) {
+            long epochSecond = time.atZone(WARSAW).toEpochSecond();
+            assertEquals(epochSecond, dateTime.epochSecond(time.toEpochSecond(ZoneOffset.UTC)), time.toString());
+            assertEquals(time.atZone(WARSAW).toLocalDateTime().toEpochSecond(ZoneOffset.UTC),
+                    dateTime.localSecond(epochSecond), time.toString());
+        }
+    }
+
+    @Test
+    void takesNotSpecifiedDateFromDefaultDay() {
+        byte[] value = octets(0xFFFF, 0xFF, 0xFF, 6, 15, 0, NO_DEVIATION);
+        long day = LocalDate.of(2024, 5, 1).toEpochDay();
+
+        assertEquals(local(2024, 5, 1, 6, 15), dateTime.localSecond(value, day));
+        assertEquals(ColumnarReadings.NO_TIME, dateTime.localSecond(value, Long.MIN_VALUE));
+    }
+
+    @Test
+    void rejectsValuesWhichAreNotDateTime() {
+        assertEquals(ColumnarReadings.NO_TIME, dateTime.epochSecond(new byte[5], Long.MIN_VALUE));
+        assertEquals(ColumnarReadings.NO_TIME, dateTime.epochSecond(null, Long.MIN_VALUE));
+        assertEquals(ColumnarReadings.NO_TIME, dateTime.epochSecond(octets(2024, 13, 1, 0, 0, 0, 0), Long.MIN_VALUE));
+        assertEquals(ColumnarReadings.NO_TIME, dateTime.epochSecond(octets(2024, 1, 1, 24, 0, 0, 0), Long.MIN_VALUE));
+    }
+
+    @Test
+    void formatsAndParsesIsoLocalDateTime() {
+        LocalDateTime[] times = {
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                LocalDateTime.of(2000, 2, 29, 23, 59, 59),
+                LocalDateTime.of(2024, 10, 27, 2, 30, 5),
+                LocalDateTime.of(1969, 12, 31, 12, 0)
+        };
+        for (LocalDateTime time : times) {
+            long localSecond = time.toEpochSecond(ZoneOffset.UTC);
+            assertEquals(time.toString().length() == 16 ? time + ":00" : time.toString(), DlmsDateTime.format(localSecond));
+            assertEquals(localSecond, DlmsDateTime.parse(DlmsDateTime.format(localSecond)));
+        }
+        assertEquals(local(2024, 5, 1, 6, 15), DlmsDateTime.parse("2024-05-01T06:15"));
+    }
+
+    /**
+     * Instant of UTC date-time.
+     */
+    private static long epoch(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Local seconds of local date-time, counted as if it was UTC.
+     */
+    private static long local(int year, int month, int day, int hour, int minute) {
+        return epoch(year, month, day, hour, minute);
+    }
+
+    /**
+     * DLMS date-time octet string, deviation in minutes.
+     */
+    private static byte[] octets(int year, int month, int day, int hour, int minute, int second, int deviation) {
+        return new byte[]{(byte) (year >>> 8), (byte) year, (byte) month, (byte) day, (byte) 0xFF,
+                (byte) hour, (byte) minute, (byte) second, 0, (byte) (deviation >>> 8), (byte) deviation, 0};
+    }
+}
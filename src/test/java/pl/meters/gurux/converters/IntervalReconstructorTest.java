@@ -0,0 +1,139 @@
+package pl.meters.gurux.converters;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IntervalReconstructorTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final long NO_TIME = ColumnarReadings.NO_TIME;
+    private static final long T = 1_714_514_400L;
+
+    private final DlmsDateTime dateTime = new DlmsDateTime(WARSAW);
+
+    @Test
+    void reconstructsTimesOfRowsWithoutClock() {
+        IntervalReconstructor intervals = new IntervalReconstructor(900, IntervalReconstructor.Mode.MARK, dateTime);
+        long[] times = {NO_TIME, T, NO_TIME, NO_TIME, T + 2700};
+        int[] flags = new int[times.length];
+
+        assertEquals(0, intervals.reconstruct(times, flags, times.length));
+
+        assertArrayEquals(new long[]{T - 900, T, T + 900, T + 1800, T + 2700}, times);
+        int r = IntervalReconstructor.RECONSTRUCTED;
+        assertArrayEquals(new int[]{r, 0, r, r, 0}, flags);
+        assertEquals(3, intervals.getReconstructed());
+    }
+
+    @Test
+    void marksGapsDuplicatesAndClockJumps() {
+        IntervalReconstructor intervals = new IntervalReconstructor(900, IntervalReconstructor.Mode.MARK, dateTime);
+        long[] times = {T, T + 900, T + 3600, T + 3600, T + 3000, T + 3900};
+        int[] flags = new int[times.length];
+
+        assertEquals(2, intervals.reconstruct(times, flags, times.length));
+
+        assertArrayEquals(new int[]{0, 0, IntervalReconstructor.GAP, IntervalReconstructor.DUPLICATE,
+                IntervalReconstructor.CLOCK_JUMP, 0}, flags);
+        assertEquals(1, intervals.getGaps());
+        assertEquals(2, intervals.getMissing());
+        assertEquals(1, intervals.getDuplicates());
+        assertEquals(1, intervals.getClockJumps());
+    }
+
+    @Test
+    void keepsStateBetweenBlocks() {
+        IntervalReconstructor intervals = new IntervalReconstructor(900, IntervalReconstructor.Mode.MARK, dateTime);
+        long[] first = {T, T + 900};
+        long[] second = {NO_TIME, T + 3600};
+        int[] flags = new int[2];
+
+        intervals.reconstruct(first, flags, 2);
+        assertEquals(1, intervals.reconstruct(second, flags, 2));
+
+        assertArrayEquals(new long[]{T + 1800, T + 3600}, second);
+        assertArrayEquals(new int[]{IntervalReconstructor.RECONSTRUCTED, IntervalReconstructor.GAP}, flags);
+    }
+
+    @Test
+    void takesRepeatedHourForRegularIntervalsWhenDstEnds() {
+        IntervalReconstructor intervals = new IntervalReconstructor(900, IntervalReconstructor.Mode.MARK, dateTime);
+        long start = LocalDateTime.of(2024, 10, 27, 0, 0).atZone(WARSAW).toEpochSecond();
+        ColumnarReadings block = block(start, 20);
+
+        intervals.apply(block, null);
+
+        assertEquals(0, intervals.getClockJumps());
+        assertEquals(0, intervals.getDuplicates());
+        assertEquals(0, intervals.getGaps());
+    }
+
+    @Test
+    void fillsMissingIntervalsFromStartOfRange() {
+        IntervalReconstructor intervals = new IntervalReconstructor(900, IntervalReconstructor.Mode.FILL, dateTime);
+        intervals.startAt(LocalDateTime.of(2024, 5, 1, 23, 52));
+        long first = LocalDateTime.of(2024, 5, 2, 0, 30).atZone(WARSAW).toEpochSecond();
+        ColumnarReadings block = new ColumnarReadings(List.of("1.0.1.8.0.255"), 4);
+        block.set(0, block.appendRow(first), 1);
+        block.set(0, block.appendRow(first), 1);
+        block.set(0, block.appendRow(NO_TIME), 2);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{"2024-05-02T00:30:00", 1.0});
+        rows.add(new Object[]{"2024-05-02T00:30:00", 1.0});
+        rows.add(new Object[]{null, 2.0});
+
+        List<Object[]> res = intervals.apply(block, rows);
+
+        assertEquals(List.of("2024-05-02T00:00:00", "2024-05-02T00:15:00", "2024-05-02T00:30:00", "2024-05-02T00:45:00"),
+                times(res));
+        assertEquals(IntervalReconstructor.FILLED, res.get(0)[2]);
+        assertEquals(IntervalReconstructor.FILLED, res.get(1)[2]);
+        assertNull(res.get(1)[1]);
+        assertEquals(IntervalReconstructor.GAP, res.get(2)[2]);
+        assertEquals(IntervalReconstructor.RECONSTRUCTED, res.get(3)[2]);
+        assertEquals(first + 900, block.time(2));
+        assertEquals(2, intervals.getMissing());
+    }
+
+    @Test
+    void followsLocalMidnightForDailyProfile() {
+        IntervalReconstructor intervals = new IntervalReconstructor(86400, IntervalReconstructor.Mode.MARK, dateTime);
+        ColumnarReadings block = new ColumnarReadings(List.of("1.0.1.8.0.255"), 4);
+        for (int day = 26; day <= 28; day++) {
+            block.appendRow(LocalDateTime.of(2024, 10, day, 0, 0).atZone(WARSAW).toEpochSecond());
+        }
+        block.appendRow(NO_TIME);
+
+        intervals.apply(block, null);
+
+        assertEquals(0, intervals.getClockJumps());
+        assertEquals(LocalDateTime.of(2024, 10, 29, 0, 0).atZone(WARSAW).toEpochSecond(), block.time(3));
+    }
+
+    /**
+     * Rows every 15 minutes from {@code start} (instant).
+     */
+    private static ColumnarReadings block(long start, int size) {
+        ColumnarReadings block = new ColumnarReadings(List.of("1.0.1.8.0.255"), size);
+        for (int i = 0; i < size; i++) {
+            block.set(0, block.appendRow(start + i * 900L), i);
+        }
+        return block;
+    }
+
+    private static List<String> times(List<Object[]> rows) {
+        List<String> times = new ArrayList<>();
+        for (Object[] row : rows) {
+            times.add((String) row[0]);
+        }
+        return times;
+    }
+}
@@ -0,0 +1,65 @@
+package pl.meters.gurux.dlms;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoundTripEstimatorTest {
+
+    @Test
+    void startsWithClampedInitialTimeout() {
+        assertEquals(10000, new RoundTripEstimator(10000, 3000, 60000).timeoutMillis());
+        assertEquals(60000, new RoundTripEstimator(100000, 3000, 60000).timeoutMillis());
+        assertEquals(3000, new RoundTripEstimator(100, 3000, 60000).timeoutMillis());
+    }
+
+    @Test
+    void firstSampleGivesThreeRoundTrips() {
+        RoundTripEstimator estimator = new RoundTripEstimator(10000, 100, 60000);
+
+        estimator.sample(2000);
+
+        // Smoothed 2000 plus four deviations of half of the round trip.
+        assertEquals(6000, estimator.timeoutMillis());
+    }
+
+    @Test
+    void convergesToSteadyRoundTrip() {
+        RoundTripEstimator estimator = new RoundTripEstimator(10000, 100, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            estimator.sample(800);
+        }
+
+        assertEquals(800, estimator.timeoutMillis());
+    }
+
+    @Test
+    void followsJitteringRoundTrips() {
+        RoundTripEstimator estimator = new RoundTripEstimator(10000, 100, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            estimator.sample(i % 2 == 0 ? 500 : 1500);
+        }
+
+        long timeout = estimator.timeoutMillis();
+        assertTrue(timeout > 1500, "timeout above all round trips: " + timeout);
+        assertTrue(timeout < 5000, "timeout not far from round trips: " + timeout);
+    }
+
+    @Test
+    void doublesTimeoutAfterTimeoutUpToMax() {
+        RoundTripEstimator estimator = new RoundTripEstimator(10000, 3000, 60000);
+
+        estimator.timedOut();
+        assertEquals(20000, estimator.timeoutMillis());
+        estimator.timedOut();
+        estimator.timedOut();
+        assertEquals(60000, estimator.timeoutMillis());
+
+        // Reply resets the timeout to the estimate.
+        estimator.sample(1000);
+        assertEquals(3000, estimator.timeoutMillis());
+    }
+}
@@ -0,0 +1,105 @@
+package pl.meters.gurux.fleet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GatewayQueueTest {
+
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    private final GatewayQueue queue = new GatewayQueue();
+
+    @Test
+    void letsOneSessionAtATime() throws InterruptedException {
+        assertTrue(queue.acquire(0, "a", TIMEOUT));
+        assertFalse(queue.tryAcquire());
+
+        queue.release();
+
+        assertTrue(queue.tryAcquire());
+        queue.release();
+    }
+
+    @Test
+    void givesUpWhenTurnDoesNotComeInTime() throws InterruptedException {
+        assertTrue(queue.acquire(0, "a", TIMEOUT));
+
+        assertFalse(queue.acquire(0, "b", TimeUnit.MILLISECONDS.toNanos(20)));
+        assertEquals(0, queue.waiting());
+
+        queue.release();
+        assertTrue(queue.tryAcquire());
+    }
+
+    @Test
+    void grantsTurnsByPriorityAndThenByMeter() throws InterruptedException {
+        assertTrue(queue.acquire(0, "holder", TIMEOUT));
+        Queue<String> order = new ConcurrentLinkedQueue<>();
+        List<Thread> sessions = new ArrayList<>();
+        String[][] waiting = {{"a", "0"}, {"a", "0"}, {"b", "0"}, {"c", "5"}, {"a", "0"}, {"d", "0"}};
+        for (String[] session : waiting) {
+            Thread thread = new Thread(() -> {
+                try {
+                    if (queue.acquire(Integer.parseInt(session[1]), session[0], TIMEOUT)) {
+                        order.add(session[0]);
+                        queue.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            sessions.add(thread);
+            awaitWaiting(sessions.size());
+        }
+
+        queue.release();
+        for (Thread thread : sessions) {
+            thread.join(TimeUnit.NANOSECONDS.toMillis(TIMEOUT));
+        }
+
+        // Meter "a" goes to the end of its level after every turn.
+        assertEquals(List.of("c", "a", "b", "d", "a", "a"), new ArrayList<>(order));
+        assertTrue(queue.tryAcquire());
+    }
+
+    @Test
+    void passesTurnOfInterruptedSession() throws InterruptedException {
+        assertTrue(queue.acquire(0, "holder", TIMEOUT));
+        Thread interrupted = new Thread(() -> {
+            try {
+                queue.acquire(0, "a", TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        interrupted.start();
+        awaitWaiting(1);
+
+        interrupted.interrupt();
+        interrupted.join(TimeUnit.NANOSECONDS.toMillis(TIMEOUT));
+
+        assertEquals(0, queue.waiting());
+        queue.release();
+        assertTrue(queue.tryAcquire());
+    }
+
+    private void awaitWaiting(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT;
+        while (queue.waiting() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("sessions not waiting: " + queue.waiting() + " of " + count);
+            }
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package pl.meters.gurux.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GorillaSegmentTest {
+
+    private static final long START = 1714514400L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void decodesEncodedPoints() throws IOException {
+        long[] times = times(2000, new Random(1));
+        double[] values = values(2000, new Random(2));
+        GorillaSegment segment = GorillaSegment.open(directory.resolve("a.gor"));
+        try {
+            for (int i = 0; i < times.length; i++) {
+                assertTrue(segment.append(times[i], values[i]));
+            }
+            assertPoints(times, values, segment);
+        } finally {
+            segment.close();
+        }
+    }
+
+    @Test
+    void ignoresPointsNotNewerThanTheLastOne() throws IOException {
+        GorillaSegment segment = GorillaSegment.open(directory.resolve("a.gor"));
+        try {
+            assertTrue(segment.append(START, 1));
+            assertTrue(segment.append(START + 900, 2));
+            assertFalse(segment.append(START + 900, 3));
+            assertFalse(segment.append(START, 4));
+            assertPoints(new long[]{START, START + 900}, new double[]{1, 2}, segment);
+        } finally {
+            segment.close();
+        }
+    }
+
+    @Test
+    void continuesEncodingAfterReopen() throws IOException {
+        Path file = directory.resolve("a.gor");
+        long[] times = times(1000, new Random(3));
+        double[] values = values(1000, new Random(4));
+        GorillaSegment segment = GorillaSegment.open(file);
+        for (int i = 0; i < 400; i++) {
+            segment.append(times[i], values[i]);
+        }
+        segment.close();
+
+        segment = GorillaSegment.open(file);
+        try {
+            assertEquals(400, segment.size());
+            assertFalse(segment.append(times[399], 0));
+            for (int i = 400; i < times.length; i++) {
+                assertTrue(segment.append(times[i], values[i]));
+            }
+            assertPoints(times, values, segment);
+        } finally {
+            segment.close();
+        }
+        assertTrue(Files.size(file) > 4096, "segment should grow beyond initial mapping");
+    }
+
+    @Test
+    void readsInsertedPointsInAnyOrder() throws IOException {
+        Path file = directory.resolve("a.late.gor");
+        GorillaSegment segment = GorillaSegment.open(file);
+        segment.insert(START + 3600, 4);
+        segment.insert(START, 1);
+        segment.insert(START + 1800, 3);
+        segment.close();
+
+        segment = GorillaSegment.open(file);
+        try {
+            segment.insert(START + 900, 2);
+            List<Long> times = new ArrayList<>();
+            List<Double> values = new ArrayList<>();
+            segment.read(START, START + 1800, (time, value) -> {
+                times.add(time);
+                values.add(value);
+            });
+            assertEquals(List.of(START, START + 1800, START + 900), times);
+            assertEquals(List.of(1.0, 3.0, 2.0), values);
+        } finally {
+            segment.close();
+        }
+    }
+
+    @Test
+    void readsRangeOfPoints() throws IOException {
+        GorillaSegment segment = GorillaSegment.open(directory.resolve("a.gor"));
+        try {
+            for (int i = 0; i < 96; i++) {
+                segment.append(START + i * 900L, i);
+            }
+            List<Long> times = new ArrayList<>();
+            segment.read(START + 900, START + 2700, (time, value) -> times.add(time));
+            assertEquals(List.of(START + 900, START + 1800, START + 2700), times);
+        } finally {
+            segment.close();
+        }
+    }
+
+    /**
+     * Regular intervals with missing ones, small irregular deltas and clock jumps of every size class.
+     */
+    private static long[] times(int count, Random random) {
+        long[] times = new long[count];
+        long time = START;
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                time += 900;
+            } else if (kind == 6) {
+                time += 900 * (2 + random.nextInt(5));
+            } else if (kind == 7) {
+                time += 1 + random.nextInt(100);
+            } else if (kind == 8) {
+                time += 1 + random.nextInt(3000);
+            } else {
+                time += 1 + random.nextInt(1_000_000);
+            }
+            times[i] = time;
+        }
+        return times;
+    }
+
+    /**
+     * Slowly growing counter, repeated values, NaN, negative and random values.
+     */
+    private static double[] values(int count, Random random) {
+        double[] values = new double[count];
+        double counter = 12345.678;
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                counter += random.nextInt(100) / 1000.0;
+                values[i] = counter;
+            } else if (kind == 5) {
+                values[i] = i > 0 ? values[i - 1] : 0;
+            } else if (kind == 6) {
+                values[i] = Double.NaN;
+            } else if (kind == 7) {
+                values[i] = -random.nextDouble() * 1e6;
+            } else {
+                values[i] = Double.longBitsToDouble(random.nextLong() & 0x7FEFFFFFFFFFFFFFL);
+            }
+        }
+        return values;
+    }
+
+    private static void assertPoints(long[] times, double[] values, GorillaSegment segment) {
+        long[] readTimes = new long[segment.size()];
+        long[] readValues = new long[segment.size()];
+        int[] read = new int[1];
+        segment.read(Long.MIN_VALUE, Long.MAX_VALUE, (time, value) -> {
+            readTimes[read[0]] = time;
+            readValues[read[0]] = Double.doubleToRawLongBits(value);
+            read[0]++;
+        });
+        long[] valueBits = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            valueBits[i] = Double.doubleToRawLongBits(values[i]);
+        }
+        assertEquals(times.length, read[0]);
+        assertArrayEquals(times, readTimes);
+        assertArrayEquals(valueBits, readValues);
+    }
+}
@@ -0,0 +1,96 @@
+package pl.meters.gurux.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceRingTest {
+
+    @Test
+    void dropsRecordsWhenFull() {
+        TraceRing ring = new TraceRing(5);
+        List<TraceRecord> offered = new ArrayList<>();
+        TraceRecord record;
+        while (ring.offer(record = record("s", offered.size()))) {
+            offered.add(record);
+        }
+
+        // Capacity is rounded up to power of two.
+        assertEquals(8, offered.size());
+        assertFalse(ring.offer(record));
+        for (TraceRecord expected : offered) {
+            assertSame(expected, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void reusesSlotsAfterPoll() {
+        TraceRing ring = new TraceRing(4);
+        for (int i = 0; i < 100; i++) {
+            TraceRecord first = record("s", 2 * i);
+            TraceRecord second = record("s", 2 * i + 1);
+            assertTrue(ring.offer(first));
+            assertTrue(ring.offer(second));
+            assertSame(first, ring.poll());
+            assertSame(second, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void passesRecordsOfManyProducersInOrderOfEachProducer() throws InterruptedException {
+        TraceRing ring = new TraceRing(64);
+        int producers = 4;
+        int records = 20000;
+        Thread[] threads = new Thread[producers];
+        int[] accepted = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < records; i++) {
+                    if (ring.offer(record(String.valueOf(producer), i))) {
+                        accepted[producer]++;
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        long[] last = new long[producers];
+        int[] polled = new int[producers];
+        Arrays.fill(last, -1);
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+            TraceRecord record;
+            while ((record = ring.poll()) != null) {
+                int producer = Integer.parseInt(record.getSession());
+                assertTrue(record.getTimestamp() > last[producer], "records of one producer keep order");
+                last[producer] = record.getTimestamp();
+                polled[producer]++;
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int p = 0; p < producers; p++) {
+            assertEquals(accepted[p], polled[p]);
+        }
+    }
+
+    private static TraceRecord record(String session, long sequence) {
+        return new TraceRecord(sequence, session, TraceRecord.TEXT, new byte[0]);
+    }
+}
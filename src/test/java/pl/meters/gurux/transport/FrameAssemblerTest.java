@@ -0,0 +1,122 @@
+package pl.meters.gurux.transport;
+
+import gurux.dlms.enums.InterfaceType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FrameAssemblerTest {
+
+    private final List<byte[]> frames = new ArrayList<>();
+
+    @Test
+    void keepsIncompleteHdlcFrameUntilTheRestArrives() {
+        FrameAssembler assembler = new FrameAssembler(InterfaceType.HDLC);
+        byte[] frame = hdlc(20, 0x11);
+
+        feed(assembler, Arrays.copyOfRange(frame, 0, 2));
+        assertEquals(0, frames.size());
+        feed(assembler, Arrays.copyOfRange(frame, 2, 15));
+        assertEquals(0, frames.size());
+        feed(assembler, Arrays.copyOfRange(frame, 15, frame.length));
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(frame, frames.get(0));
+    }
+
+    @Test
+    void splitsHdlcFramesSharingFlag() {
+        FrameAssembler assembler = new FrameAssembler(InterfaceType.HDLC);
+        byte[] first = hdlc(10, 0x11);
+        byte[] second = hdlc(12, 0x22);
+        byte[] third = hdlc(8, 0x33);
+
+        // Second frame opened by the closing flag of the first one, third one with its own flag.
+        feed(assembler, concat(first, Arrays.copyOfRange(second, 1, second.length), third));
+
+        assertEquals(3, frames.size());
+        assertArrayEquals(first, frames.get(0));
+        assertArrayEquals(second, frames.get(1));
+        assertArrayEquals(third, frames.get(2));
+    }
+
+    @Test
+    void skipsNoiseBetweenHdlcFrames() {
+        FrameAssembler assembler = new FrameAssembler(InterfaceType.HDLC);
+        byte[] first = hdlc(10, 0x11);
+        byte[] second = hdlc(10, 0x22);
+
+        feed(assembler, concat(new byte[]{0x01, 0x02}, first, new byte[]{0x55, 0x7E, 0x00}, second));
+
+        assertEquals(2, frames.size());
+        assertArrayEquals(first, frames.get(0));
+        assertArrayEquals(second, frames.get(1));
+    }
+
+    @Test
+    void assemblesWrapperFramesByLengthOfHeader() {
+        FrameAssembler assembler = new FrameAssembler(InterfaceType.WRAPPER);
+        byte[] first = wrapper(300);
+        byte[] second = wrapper(5);
+        byte[] data = concat(first, second);
+
+        feed(assembler, Arrays.copyOfRange(data, 0, 7));
+        feed(assembler, Arrays.copyOfRange(data, 7, 200));
+        assertEquals(0, frames.size());
+        feed(assembler, Arrays.copyOfRange(data, 200, data.length));
+
+        assertEquals(2, frames.size());
+        assertArrayEquals(first, frames.get(0));
+        assertArrayEquals(second, frames.get(1));
+    }
+
+    private void feed(FrameAssembler assembler, byte[] data) {
+        assembler.feed(ByteBuffer.wrap(data), frames::add);
+    }
+
+    /**
+     * HDLC frame format type 3, {@code length} bytes between flags.
+     */
+    private static byte[] hdlc(int length, int fill) {
+        byte[] frame = new byte[length + 2];
+        Arrays.fill(frame, (byte) fill);
+        frame[0] = 0x7E;
+        frame[1] = (byte) (0xA0 | (length >>> 8));
+        frame[2] = (byte) length;
+        frame[frame.length - 1] = 0x7E;
+        return frame;
+    }
+
+    private static byte[] wrapper(int length) {
+        byte[] frame = new byte[8 + length];
+        frame[1] = 1;
+        frame[3] = 0x10;
+        frame[5] = 1;
+        frame[6] = (byte) (length >>> 8);
+        frame[7] = (byte) length;
+        for (int i = 8; i < frame.length; i++) {
+            frame[i] = (byte) i;
+        }
+        return frame;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] res = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, res, offset, part.length);
+            offset += part.length;
+        }
+        return res;
+    }
+}